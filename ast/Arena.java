@@ -0,0 +1,364 @@
+package ast;
+
+import lexer.Lexer;
+import token.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+// A compact AST: every node is one slot in a set of parallel int arrays
+// instead of a heap object holding a Token. A node has a kind, the source
+// offset of its token and up to four operands, which are child nodes,
+// indices into the interned string table, literal values, or an offset and
+// length into the shared list array for nodes with any number of children.
+// Missing children, such as an if without else, are -1.
+//
+// parser.ArenaParser builds one; View turns any node back into the Ast.Node
+// tree that Parser would have produced, for code that wants objects.
+//
+//     kind        A            B            C            D
+//     PROGRAM     list         length
+//     BLOCK       list         length
+//     LET         name         value
+//     ASSIGN      name         value
+//     RETURN      value
+//     EXPRESSION  expression
+//     WHILE       condition    body
+//     FOR         init         condition    update       body
+//     IDENT       name
+//     INTEGER     value
+//     BOOLEAN     0 or 1
+//     STRING      string
+//     CHAR        char
+//     PREFIX      operator     right
+//     INFIX       operator     left         right
+//     IF          condition    consequence  alternative
+//     FUNCTION    params list  length       body         name
+//     CALL        function     args list    length
+//     ARRAY       list         length
+//     INDEX       left         index
+//     HASH        list         pairs        (keys and values alternate)
+//     IMPORT      path
+public class Arena {
+    public static final int PROGRAM = 0;
+    public static final int BLOCK = 1;
+    public static final int LET = 2;
+    public static final int ASSIGN = 3;
+    public static final int RETURN = 4;
+    public static final int EXPRESSION = 5;
+    public static final int WHILE = 6;
+    public static final int FOR = 7;
+    public static final int IDENT = 8;
+    public static final int INTEGER = 9;
+    public static final int BOOLEAN = 10;
+    public static final int STRING = 11;
+    public static final int CHAR = 12;
+    public static final int PREFIX = 13;
+    public static final int INFIX = 14;
+    public static final int IF = 15;
+    public static final int FUNCTION = 16;
+    public static final int CALL = 17;
+    public static final int ARRAY = 18;
+    public static final int INDEX = 19;
+    public static final int HASH = 20;
+    public static final int IMPORT = 21;
+
+    public final String Source;
+    public int Root = -1;
+
+    private int[] kind;
+    private int[] pos;
+    private int[] a;
+    private int[] b;
+    private int[] c;
+    private int[] d;
+    private int count;
+
+    private int[] lists = new int[64];
+    private int listCount;
+
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final HashMap<String,Integer> interned = new HashMap<>();
+
+    public Arena(String source) {
+        Source = source;
+        // Roughly one node per four characters of source.
+        var capacity = Math.max(16, source.length() / 4);
+        kind = new int[capacity];
+        pos = new int[capacity];
+        a = new int[capacity];
+        b = new int[capacity];
+        c = new int[capacity];
+        d = new int[capacity];
+    }
+
+    public int Add(int k,int position,int x,int y,int z,int w) {
+        if(count == kind.length) {
+            var capacity = count * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            pos = Arrays.copyOf(pos, capacity);
+            a = Arrays.copyOf(a, capacity);
+            b = Arrays.copyOf(b, capacity);
+            c = Arrays.copyOf(c, capacity);
+            d = Arrays.copyOf(d, capacity);
+        }
+        kind[count] = k;
+        pos[count] = position;
+        a[count] = x;
+        b[count] = y;
+        c[count] = z;
+        d[count] = w;
+        return count++;
+    }
+
+    // Copies items[from, to) into the list array and returns its offset.
+    public int AddList(int[] items,int from,int to) {
+        var n = to - from;
+        if(listCount + n > lists.length) {
+            lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listCount + n));
+        }
+        System.arraycopy(items, from, lists, listCount, n);
+        listCount += n;
+        return listCount - n;
+    }
+
+    public int Intern(String s) {
+        var index = interned.get(s);
+        if(index == null) {
+            index = strings.size();
+            strings.add(s);
+            interned.put(s, index);
+        }
+        return index;
+    }
+
+    public int Count() {
+        return count;
+    }
+
+    public int Kind(int n) {
+        return kind[n];
+    }
+
+    public int Position(int n) {
+        return pos[n];
+    }
+
+    public int A(int n) {
+        return a[n];
+    }
+
+    public int B(int n) {
+        return b[n];
+    }
+
+    public int C(int n) {
+        return c[n];
+    }
+
+    public int D(int n) {
+        return d[n];
+    }
+
+    // Records the name of the let a FUNCTION node is bound by.
+    public void SetFunctionName(int n,int name) {
+        d[n] = name;
+    }
+
+    public String String(int index) {
+        return strings.get(index);
+    }
+
+    public int ListItem(int offset,int i) {
+        return lists[offset + i];
+    }
+
+    // The statements of a PROGRAM or BLOCK node.
+    public int[] Statements(int n) {
+        return Arrays.copyOfRange(lists, a[n], a[n] + b[n]);
+    }
+
+    // Every name assigned to anywhere in the arena.
+    public HashSet<String> AssignedNames() {
+        var names = new HashSet<String>();
+        for(int n = 0;n < count;n++) {
+            if(kind[n] == ASSIGN) {
+                names.add(strings.get(a[n]));
+            }
+        }
+        return names;
+    }
+
+    // Bytes held by the node, list and string tables, leaving out array
+    // headers and spare capacity.
+    public long Bytes() {
+        long bytes = count * 6L * Integer.BYTES + listCount * (long)Integer.BYTES;
+        for(var s : strings) {
+            bytes += s.length();
+        }
+        return bytes;
+    }
+
+    public Ast.Program Program() {
+        return (Ast.Program)View(Root);
+    }
+
+    // The Ast.Node tree for node n, or null for -1.
+    public Ast.Node View(int n) {
+        if(n < 0) {
+            return null;
+        }
+
+        var t = token(n);
+        return switch (kind[n]) {
+            case PROGRAM -> {
+                var program = new Ast.Program();
+                for(int i = 0;i < b[n];i++) {
+                    program.Statements.add((Ast.Statement)View(lists[a[n] + i]));
+                }
+                yield program;
+            }
+            case BLOCK -> block(n);
+            case LET -> {
+                var let = new Ast.LetStatement(t);
+                let.Name = identifier(n, a[n]);
+                let.Value = expression(b[n]);
+                yield let;
+            }
+            case ASSIGN -> {
+                var assign = new Ast.AssignStatement(t);
+                assign.Name = new Ast.Identifier(t, strings.get(a[n]));
+                assign.Value = expression(b[n]);
+                yield assign;
+            }
+            case RETURN -> {
+                var ret = new Ast.ReturnStatement(t);
+                ret.ReturnValue = expression(a[n]);
+                yield ret;
+            }
+            case IMPORT -> {
+                var statement = new Ast.ImportStatement(t);
+                statement.Path = strings.get(a[n]);
+                yield statement;
+            }
+            case EXPRESSION -> {
+                var statement = new Ast.ExpressionStatement(t);
+                statement.Expression = expression(a[n]);
+                yield statement;
+            }
+            case WHILE -> {
+                var loop = new Ast.WhileStatement(t);
+                loop.Condition = expression(a[n]);
+                loop.Body = block(b[n]);
+                yield loop;
+            }
+            case FOR -> {
+                var loop = new Ast.ForStatement(t);
+                loop.Init = (Ast.Statement)View(a[n]);
+                loop.Condition = expression(b[n]);
+                loop.Update = (Ast.Statement)View(c[n]);
+                loop.Body = block(d[n]);
+                yield loop;
+            }
+            case IDENT -> new Ast.Identifier(t, strings.get(a[n]));
+            case INTEGER -> {
+                var literal = new Ast.IntegerLiteral(t);
+                literal.Value = a[n];
+                yield literal;
+            }
+            case BOOLEAN -> new Ast.Boolean(t, a[n] != 0);
+            case STRING -> new Ast.StringLiteral(t, strings.get(a[n]));
+            case CHAR -> {
+                var literal = new Ast.CharLiteral(t);
+                literal.Value = (char)a[n];
+                yield literal;
+            }
+            case PREFIX -> {
+                var prefix = new Ast.PrefixExpression(t, strings.get(a[n]));
+                prefix.Right = expression(b[n]);
+                yield prefix;
+            }
+            case INFIX -> {
+                var infix = new Ast.InfixExpression(t, strings.get(a[n]), expression(b[n]));
+                infix.Right = expression(c[n]);
+                yield infix;
+            }
+            case IF -> {
+                var ifExpression = new Ast.IfExpression(t);
+                ifExpression.Condition = expression(a[n]);
+                ifExpression.Consequence = block(b[n]);
+                ifExpression.Alternative = block(c[n]);
+                yield ifExpression;
+            }
+            case FUNCTION -> {
+                var fn = new Ast.FunctionLiteral(t);
+                for(int i = 0;i < b[n];i++) {
+                    fn.Parameters.add((Ast.Identifier)View(lists[a[n] + i]));
+                }
+                fn.Body = block(c[n]);
+                fn.Name = d[n] < 0 ? null : strings.get(d[n]);
+                yield fn;
+            }
+            case CALL -> {
+                var call = new Ast.CallExpression(t, expression(a[n]));
+                for(int i = 0;i < c[n];i++) {
+                    call.Arguments.add(expression(lists[b[n] + i]));
+                }
+                yield call;
+            }
+            case ARRAY -> {
+                var array = new Ast.ArrayLiteral(t);
+                for(int i = 0;i < b[n];i++) {
+                    array.ELements.add(expression(lists[a[n] + i]));
+                }
+                yield array;
+            }
+            case INDEX -> {
+                var index = new Ast.IndexExpression(t, expression(a[n]));
+                index.Index = expression(b[n]);
+                yield index;
+            }
+            case HASH -> {
+                var hash = new Ast.HashLiteral(t);
+                for(int i = 0;i < b[n];i++) {
+                    hash.Pairs.put(expression(lists[a[n] + 2 * i]), expression(lists[a[n] + 2 * i + 1]));
+                }
+                yield hash;
+            }
+            default -> throw new IllegalStateException("unknown node kind " + kind[n]);
+        };
+    }
+
+    private Ast.Expression expression(int n) {
+        return (Ast.Expression)View(n);
+    }
+
+    private Ast.BlockStatement block(int n) {
+        if(n < 0) {
+            return null;
+        }
+        var block = new Ast.BlockStatement(token(n));
+        for(int i = 0;i < b[n];i++) {
+            block.Statements.add((Ast.Statement)View(lists[a[n] + i]));
+        }
+        return block;
+    }
+
+    // The identifier a let binds: its token is the one after "let".
+    private Ast.Identifier identifier(int n,int name) {
+        var l = new Lexer(Source, pos[n]);
+        l.NextToken();
+        return new Ast.Identifier(l.NextToken(), strings.get(name));
+    }
+
+    // Tokens are not stored; the lexer finds a node's token again from the
+    // offset.
+    private Token token(int n) {
+        if(kind[n] == PROGRAM) {
+            return null;
+        }
+        return new Lexer(Source, pos[n]).NextToken();
+    }
+}
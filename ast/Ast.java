@@ -5,6 +5,7 @@ import token.Token;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class Ast {
     public interface Node {
@@ -100,6 +101,95 @@ public class Ast {
         }
     }
 
+    // name = value; for a name already bound by let.
+    public static class AssignStatement implements Statement {
+        public Token Token;
+        public Identifier Name;
+        public Expression Value;
+
+        public AssignStatement(Token t) {
+            Token = t;
+        }
+
+        @Override
+        public String TokenLiteral() {
+            return Token.Literal;
+        }
+
+        @Override
+        public String String() {
+            return String.format("%s = %s;", Name.String(), Value.String());
+        }
+    }
+
+    // import "path"; brings in the top-level names of another file.
+    public static class ImportStatement implements Statement {
+        public Token Token;
+        public String Path;
+
+        public ImportStatement(Token t) {
+            Token = t;
+        }
+
+        @Override
+        public String TokenLiteral() {
+            return Token.Literal;
+        }
+
+        @Override
+        public String String() {
+            return String.format("import \"%s\";", Path);
+        }
+    }
+
+    public static class WhileStatement implements Statement {
+        public Token Token;
+        public Expression Condition;
+        public BlockStatement Body;
+
+        public WhileStatement(Token t) {
+            Token = t;
+        }
+
+        @Override
+        public String TokenLiteral() {
+            return Token.Literal;
+        }
+
+        @Override
+        public String String() {
+            return String.format("while (%s) { %s }", Condition.String(), Body.String());
+        }
+    }
+
+    // for (Init; Condition; Update) Body. Init and Update may be null.
+    public static class ForStatement implements Statement {
+        public Token Token;
+        public Statement Init;
+        public Expression Condition;
+        public Statement Update;
+        public BlockStatement Body;
+
+        public ForStatement(Token t) {
+            Token = t;
+        }
+
+        @Override
+        public String TokenLiteral() {
+            return Token.Literal;
+        }
+
+        @Override
+        public String String() {
+            var init = Init == null ? ";" : Init.String();
+            var update = Update == null ? "" : Update.String();
+            if (update.endsWith(";")) {
+                update = update.substring(0, update.length() - 1);
+            }
+            return String.format("for (%s %s; %s) { %s }", init, Condition.String(), update, Body.String());
+        }
+    }
+
     public static class ExpressionStatement implements Statement {
         public Token Token;
         public Expression Expression;
@@ -488,4 +578,56 @@ public class Ast {
             return String.valueOf(Value);
         }
     }
+
+    // Calls visit on node and then on every node below it, statements in
+    // order. visit may change a node's own statement list before it is walked.
+    public static void Walk(Node node,Consumer<Node> visit) {
+        if(node == null) {
+            return;
+        }
+        visit.accept(node);
+        switch (node) {
+            case Program program -> program.Statements.forEach(s -> Walk(s,visit));
+            case BlockStatement block -> block.Statements.forEach(s -> Walk(s,visit));
+            case ExpressionStatement statement -> Walk(statement.Expression,visit);
+            case ReturnStatement statement -> Walk(statement.ReturnValue,visit);
+            case LetStatement statement -> Walk(statement.Value,visit);
+            case AssignStatement statement -> Walk(statement.Value,visit);
+            case WhileStatement statement -> {
+                Walk(statement.Condition,visit);
+                Walk(statement.Body,visit);
+            }
+            case ForStatement statement -> {
+                Walk(statement.Init,visit);
+                Walk(statement.Condition,visit);
+                Walk(statement.Update,visit);
+                Walk(statement.Body,visit);
+            }
+            case PrefixExpression expression -> Walk(expression.Right,visit);
+            case InfixExpression expression -> {
+                Walk(expression.Left,visit);
+                Walk(expression.Right,visit);
+            }
+            case IfExpression expression -> {
+                Walk(expression.Condition,visit);
+                Walk(expression.Consequence,visit);
+                Walk(expression.Alternative,visit);
+            }
+            case FunctionLiteral expression -> Walk(expression.Body,visit);
+            case CallExpression expression -> {
+                Walk(expression.Function,visit);
+                expression.Arguments.forEach(a -> Walk(a,visit));
+            }
+            case ArrayLiteral expression -> expression.ELements.forEach(e -> Walk(e,visit));
+            case IndexExpression expression -> {
+                Walk(expression.Left,visit);
+                Walk(expression.Index,visit);
+            }
+            case HashLiteral expression -> expression.Pairs.forEach((k, v) -> {
+                Walk(k,visit);
+                Walk(v,visit);
+            });
+            default -> {}
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package evaluator;
+
+import compiler.Compiler;
+import compiler.SymbolTable;
+import object.Builtins;
+import object.Object;
+import object.Output;
+import parser.ParallelParser;
+import vm.Engine;
+import vm.RegisterVM;
+import vm.VM;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Runs scripts on the compiled engine and on the Evaluator with
+// vm.Differential and reports any difference in what they print or fail
+// with.
+//
+//     java evaluator.Differential [script...]
+//
+// Each script runs three times: compiled, as Repl runs it; in the evaluator;
+// and in the evaluator with every function compiled on its first call, which
+// covers calls between interpreted and compiled code.
+public class Differential {
+    private static final List<String> DEFAULT = List.of(
+            "puts(1 + 2 * 3 - 4 / 2, -5, !true, !!0, 1 < 2, 2 <= 1, 3 > 2, 3 >= 4, 1 == 1, 1 != 1);",
+            "puts(\"mon\" + \"key\", 'a' < 'b', [1, 2, 3][1], [1][5], {\"a\": 1, 2: \"b\", true: 3}[2]);",
+            "let a = 1; let f = fn() { a }; let a = 2; puts(f(), a);",
+            "let add = fn(x) { fn(y) { fn(z) { x + y + z } } }; puts(add(1)(2)(3));",
+            "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; puts(fib(20));",
+            "let f = fn(n) { let s = 0; let i = 0; while (i < n) { s = s + i; i = i + 1; } s }; puts(f(10), f(1000));",
+            "let f = fn(n) { let s = 0; for (let i = 0; i < n; i = i + 1) { s = s + i; } s }; puts(map(range(0, 200), f)[199]);",
+            "let counter = fn() { let n = 0; let step = fn(k) { n + k }; step }; puts(counter()(5));",
+            "let fact = fn(n) { if (n == 0) { 1 } else { n * fact(n - 1) } }; puts(map([1, 5, 10], fact));",
+            "puts(reduce([1, 2, 3, 4], 0, fn(a, b) { a + b }), filter([1, 2, 3, 4], fn(x) { x > 2 }));",
+            "puts(sort([3, 1, 2], fn(a, b) { a - b }), join(push([1], 2), \"-\"), len(\"four\"), first([7]), last([7, 8]), rest([1, 2]));",
+            "let m = memo(fn(n) { if (n < 2) { n } else { m(n - 1) + m(n - 2) } }); puts(m(60), memostats(m)[\"misses\"]);",
+            "puts(pmap([1, 2, 3], fn(x) { x * x }), preduce([1, 2, 3, 4], 0, fn(a, b) { a + b }));",
+            "let f = fn() { puts(\"a\"); }; puts(f()); puts(if (false) { 1 }); puts(fn(){}());",
+            "let f = fn(x) { x }; f(1, 2);",
+            "let f = fn(n) { f(n + 1) }; f(0);",
+            "puts(1); 1 + \"a\";",
+            "puts(undefined);",
+            "let f = fn(x) { let g = fn() { x = 2; }; g }; f(1);",
+            "let t = fn(x) { x }; let x = t; puts(x(5), len(1));");
+
+    public static void main(String[] args) throws IOException {
+        vm.Differential.Compare(args, DEFAULT, List.of(
+                new vm.Differential.Candidate("compiled", (text, out) -> run(text, out, -1)),
+                new vm.Differential.Candidate("evaluated", (text, out) -> run(text, out, Evaluator.Threshold)),
+                new vm.Differential.Candidate("tiered", (text, out) -> run(text, out, 0))));
+    }
+
+    // Runs text on the compiled engine if threshold is negative and
+    // otherwise in an Evaluator with that threshold.
+    private static Object.Error run(String text,Output out,int threshold) {
+        var p = new ParallelParser(text);
+        var program = p.ParseProgram();
+        if(!p.Errors().isEmpty()) {
+            return new Object.Error("parser errors: " + p.Errors());
+        }
+
+        var globals = new ArrayList<Object>(VM.GlobalSize);
+        if(threshold < 0) {
+            var symbolTable = new SymbolTable();
+            for(int i = 0;i < Builtins.builtins.size();i++) {
+                symbolTable.DefineBuiltin(i,Builtins.builtins.get(i).Name);
+            }
+            var comp = new Compiler(symbolTable,new ArrayList<>());
+            comp.Source = text;
+            var err = comp.Compile(program);
+            if(!Objects.equals(err.Message, "")) {
+                return new Object.Error("compilation failed: " + err.Message);
+            }
+            var machine = Engine.New(comp.bytecode(),globals);
+            switch(machine) {
+                case VM vm -> vm.Out = out;
+                case RegisterVM vm -> vm.Out = out;
+                default -> {}
+            }
+            return machine.Run();
+        }
+
+        var evaluator = new Evaluator(program,text,globals,threshold);
+        evaluator.Out = out;
+        var err = evaluator.Resolve();
+        if(!Objects.equals(err.Message, "")) {
+            return new Object.Error("compilation failed: " + err.Message);
+        }
+        return evaluator.Run();
+    }
+}
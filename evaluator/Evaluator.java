@@ -0,0 +1,525 @@
+package evaluator;
+
+import ast.Ast;
+import compiler.Compiler;
+import compiler.SymbolTable;
+import jit.Ops;
+import object.Builtins;
+import object.Memo;
+import object.Object;
+import object.Output;
+import vm.Engine;
+import vm.VM;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static code.Code.Opcode.*;
+
+// First execution tier: runs a program straight from its syntax tree, so a
+// short script does not pay for compiling, verifying and loading the
+// compiler's classes before its first line runs. Values, builtins and the
+// operations on them are the ones the VM uses, through jit.Ops.
+//
+// Each function literal counts its calls and the loop iterations run in it.
+// Once the count passes -Dmonkey.eval.threshold (100 by default) the literal
+// is compiled to bytecode and from then on its calls run on a VM that shares
+// the evaluator's globals; a call already under way finishes in the
+// evaluator. The Resolver numbers names the way the compiler does, so the
+// compiled function reads the same globals and captures the same values. If
+// the function is bound by a top-level let, the global is pointed at the
+// compiled closure, so calls from compiled code stay on the VM.
+//
+// Repl picks this engine for a short script with no loops or imports at its
+// top level, or for any script with -Dmonkey.engine=ast; see Suits.
+public class Evaluator implements Engine, Object.Context {
+    public static final int Threshold = Integer.getInteger("monkey.eval.threshold", 100);
+    // The longest script that runs here unless asked for.
+    public static final int MaxLength = Integer.getInteger("monkey.eval.max", 4096);
+
+    // Flags whose output only the compiled engines produce.
+    private static final String[] COMPILED_ONLY = {"monkey.jit", "monkey.metrics", "monkey.profile", "monkey.dce"};
+
+    // The opcode each infix operator runs. < and <= swap their operands.
+    static final Map<String,Byte> Infix = Map.of(
+            "+", OpAdd.getValue(), "-", OpSub.getValue(), "*", OpMul.getValue(), "/", OpDiv.getValue(),
+            ">", OpGreaterThan.getValue(), ">=", OpGreater.getValue(),
+            "<", OpGreaterThan.getValue(), "<=", OpGreater.getValue(),
+            "==", OpEqual.getValue(), "!=", OpNotEqual.getValue());
+
+    // What the evaluators running one program share: the program, its
+    // globals and the functions compiled so far.
+    private static class Program {
+        final Ast.Program tree;
+        final String source;
+        final ArrayList<Object> globals;
+        final int threshold;
+        final Resolver resolver = new Resolver();
+        Object.Error resolved;
+        // Made on first use; compiled functions refer to its constants by
+        // index, and a VM reads them while another thread may be adding
+        // more.
+        Compiler compiler;
+        final CopyOnWriteArrayList<Object> constants = new CopyOnWriteArrayList<>();
+
+        Program(Ast.Program t,String s,ArrayList<Object> g,int h) {
+            tree = t;
+            source = s;
+            globals = g;
+            threshold = h;
+        }
+    }
+
+    // A function value the evaluator made. Compiled code calls it like a
+    // builtin, which runs its compiled form.
+    static final class Function extends Object.Builtin {
+        final Program program;
+        final Resolver.Scope scope;
+        final Object[] free;
+        private volatile Object.Closure closure;
+
+        Function(Program p,Resolver.Scope s,Object[] f) {
+            program = p;
+            scope = s;
+            free = f;
+        }
+
+        public Object Invoke(Object.Context ctx, Object... args) {
+            if(ctx instanceof Evaluator e && e.program == program) {
+                return e.call(this,args);
+            }
+            return ctx.Call(compiled(false),args);
+        }
+
+        // The compiled form, with the values this one captured. If publish
+        // is set, a top-level function is replaced by it in its global.
+        Object.Closure compiled(boolean publish) {
+            var cl = closure;
+            if(cl != null) {
+                return cl;
+            }
+            if(!compile(program,scope)) {
+                throw Ops.fail(java.lang.String.format("cannot compile %s", Inspect()));
+            }
+            var fn = scope.compiled;
+            var captured = new ArrayList<Object>(fn.FreeNames.length);
+            for(var name : fn.FreeNames) {
+                for(int i = 0;i < scope.free.size();i++) {
+                    if(Objects.equals(scope.free.get(i).Name,name)) {
+                        captured.add(free[i]);
+                        break;
+                    }
+                }
+            }
+            cl = new Object.Closure(fn,captured);
+            closure = cl;
+
+            if(publish && scope.global >= 0 && scope.global < program.globals.size() && program.globals.get(scope.global) == this) {
+                program.globals.set(scope.global,cl);
+            }
+            return cl;
+        }
+
+        public java.lang.String Type() {
+            return Object.CLOSURE_OBJ;
+        }
+
+        public java.lang.String Inspect() {
+            return "Closure[" + this + "]";
+        }
+    }
+
+    // One call of an interpreted function; fn is null for the top level.
+    private record Frame(Function fn,Object[] locals) {}
+
+    // Unwinds a return statement to the call it returns from.
+    @SuppressWarnings("serial")
+    private static final class Return extends RuntimeException {
+        final Object Value;
+
+        Return(Object v) {
+            super(null, null, false, false);
+            Value = v;
+        }
+    }
+
+    private final Program program;
+    private VM vm;
+    private int depth;
+    // As in the VM, set on a fork, which may only read globals.
+    private boolean forked;
+
+    // Where puts writes; flushed as Run returns.
+    public Output Out = new Output(System.out);
+
+    public Evaluator(Ast.Program tree,String source,ArrayList<Object> globals) {
+        this(tree,source,globals,Threshold);
+    }
+
+    // threshold 0 compiles every function on its first call.
+    public Evaluator(Ast.Program tree,String source,ArrayList<Object> globals,int threshold) {
+        this(new Program(tree,source,globals,threshold));
+    }
+
+    private Evaluator(Program p) {
+        program = p;
+    }
+
+    // Whether Repl should run program, whose text is text, here rather than
+    // compile it. -Dmonkey.engine=ast asks for it; otherwise it is chosen
+    // for a short script when no engine is asked for, unless a flag asks for
+    // what only compiled code reports. A loop at the top level could run
+    // for long with nothing to compile, so such a script is compiled.
+    public static boolean Suits(Ast.Program program,String text) {
+        for(var s : program.Statements) {
+            if(s instanceof Ast.ImportStatement) {
+                return false;
+            }
+        }
+        var engine = System.getProperty("monkey.engine");
+        if(engine != null) {
+            return Objects.equals(engine,"ast");
+        }
+        if(text.length() > MaxLength) {
+            return false;
+        }
+        for(var flag : COMPILED_ONLY) {
+            if(System.getProperty(flag) != null) {
+                return false;
+            }
+        }
+        for(var s : program.Statements) {
+            if(s instanceof Ast.WhileStatement || s instanceof Ast.ForStatement) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Resolves the program's names, returning what the compiler would have
+    // failed with. Run does it first if it has not been done.
+    public Object.Error Resolve() {
+        if(program.resolved == null) {
+            program.resolved = program.resolver.Resolve(program.tree);
+        }
+        return program.resolved;
+    }
+
+    public Object.Error Run() {
+        var err = Resolve();
+        if(!Objects.equals(err.Message,"")) {
+            return err;
+        }
+        var top = new Frame(null,new Object[0]);
+        Object.Error failed;
+        try {
+            for(var s : program.tree.Statements) {
+                execute(s,top);
+            }
+        } catch (Return r) {
+            // A return at the top level ends the program.
+        } catch (Object.Failure f) {
+            err = f.Error;
+        } catch (StackOverflowError e) {
+            err = new Object.Error("stack overflow");
+        } finally {
+            // Also when the run throws, so what it printed is not lost.
+            failed = Out.Flush();
+        }
+        if(failed != null && Objects.equals(err.Message,"")) {
+            err = failed;
+        }
+        return err;
+    }
+
+    // Returns the value of s if it is an expression statement, else null.
+    // Nodes are told apart with instanceof rather than a pattern switch,
+    // whose bootstrap takes longer than a short script takes to run.
+    private Object execute(Ast.Statement s,Frame f) {
+        if(s instanceof Ast.ExpressionStatement statement) {
+            return eval(statement.Expression,f);
+        }
+        else if(s instanceof Ast.LetStatement let) {
+            store(let,eval(let.Value,f),f);
+        }
+        else if(s instanceof Ast.AssignStatement assign) {
+            store(assign,eval(assign.Value,f),f);
+        }
+        else if(s instanceof Ast.ReturnStatement statement) {
+            throw new Return(eval(statement.ReturnValue,f));
+        }
+        else if(s instanceof Ast.WhileStatement loop) {
+            while(Ops.Truthy(eval(loop.Condition,f))) {
+                block(loop.Body,f);
+                heat(f);
+            }
+        }
+        else if(s instanceof Ast.ForStatement loop) {
+            if(loop.Init != null) {
+                execute(loop.Init,f);
+            }
+            while(Ops.Truthy(eval(loop.Condition,f))) {
+                block(loop.Body,f);
+                if(loop.Update != null) {
+                    execute(loop.Update,f);
+                }
+                heat(f);
+            }
+        }
+        else if(s instanceof Ast.BlockStatement block) {
+            block(block,f);
+        }
+        else {
+            throw Ops.fail(String.format("cannot evaluate %s", s.String()));
+        }
+        return null;
+    }
+
+    // The value of the block's last statement if it is an expression
+    // statement, else null.
+    private Object block(Ast.BlockStatement block,Frame f) {
+        Object value = null;
+        for(var s : block.Statements) {
+            value = execute(s,f);
+        }
+        return value;
+    }
+
+    private Object eval(Ast.Expression e,Frame f) {
+        if(e instanceof Ast.IntegerLiteral literal) {
+            return program.resolver.constants.get(literal);
+        }
+        else if(e instanceof Ast.StringLiteral literal) {
+            return program.resolver.constants.get(literal);
+        }
+        else if(e instanceof Ast.CharLiteral literal) {
+            return program.resolver.constants.get(literal);
+        }
+        else if(e instanceof Ast.Boolean literal) {
+            return Ops.Bool(literal.Value);
+        }
+        else if(e instanceof Ast.Identifier identifier) {
+            return load(program.resolver.symbols.get(identifier),f);
+        }
+        else if(e instanceof Ast.PrefixExpression prefix) {
+            var right = eval(prefix.Right,f);
+            return Objects.equals(prefix.Operator,"!") ? Ops.Bang(right) : Ops.Minus(right);
+        }
+        else if(e instanceof Ast.InfixExpression infix) {
+            var op = Infix.get(infix.Operator);
+            switch(infix.Operator) {
+                case "<", "<=" -> {
+                    var right = eval(infix.Right,f);
+                    return Ops.Compare(op,right,eval(infix.Left,f));
+                }
+                case "+", "-", "*", "/" -> {
+                    var left = eval(infix.Left,f);
+                    return Ops.Binary(op,left,eval(infix.Right,f));
+                }
+                default -> {
+                    var left = eval(infix.Left,f);
+                    return Ops.Compare(op,left,eval(infix.Right,f));
+                }
+            }
+        }
+        else if(e instanceof Ast.IfExpression expression) {
+            var taken = Ops.Truthy(eval(expression.Condition,f)) ? expression.Consequence : expression.Alternative;
+            var value = taken == null ? null : block(taken,f);
+            return value == null ? VM.NULL : value;
+        }
+        else if(e instanceof Ast.FunctionLiteral literal) {
+            var scope = program.resolver.scopes.get(literal);
+            var free = new Object[scope.free.size()];
+            for(int i = 0;i < free.length;i++) {
+                free[i] = load(scope.free.get(i),f);
+            }
+            return new Function(program,scope,free);
+        }
+        else if(e instanceof Ast.CallExpression call) {
+            var fn = eval(call.Function,f);
+            var args = new Object[call.Arguments.size()];
+            for(int i = 0;i < args.length;i++) {
+                args[i] = eval(call.Arguments.get(i),f);
+            }
+            return Call(fn,args);
+        }
+        else if(e instanceof Ast.ArrayLiteral array) {
+            var elements = new Object[array.ELements.size()];
+            for(int i = 0;i < elements.length;i++) {
+                elements[i] = eval(array.ELements.get(i),f);
+            }
+            return Ops.Array(elements);
+        }
+        else if(e instanceof Ast.IndexExpression index) {
+            var left = eval(index.Left,f);
+            return Ops.Index(this,left,eval(index.Index,f));
+        }
+        else if(e instanceof Ast.HashLiteral hash) {
+            var keys = program.resolver.keys.get(hash);
+            var keysAndValues = new Object[keys.length * 2];
+            for(int i = 0;i < keys.length;i++) {
+                keysAndValues[2 * i] = eval(keys[i],f);
+                keysAndValues[2 * i + 1] = eval(hash.Pairs.get(keys[i]),f);
+            }
+            return Ops.Hash(keysAndValues);
+        }
+        else {
+            throw Ops.fail(String.format("cannot evaluate %s", e.String()));
+        }
+    }
+
+    private Object load(SymbolTable.Symbol symbol,Frame f) {
+        return switch(symbol.Scope) {
+            case "GLOBAL" -> program.globals.get(symbol.Index);
+            case "LOCAL" -> f.locals[symbol.Index];
+            case "BUILTIN" -> Builtins.builtins.get(symbol.Index).Builtin;
+            case "FREE" -> f.fn.free[symbol.Index];
+            case "FUNCTION" -> f.fn;
+            default -> throw Ops.fail(String.format("cannot load %s", symbol.Name));
+        };
+    }
+
+    private void store(Ast.Statement s,Object value,Frame f) {
+        var symbol = program.resolver.symbols.get(s);
+        if(Objects.equals(symbol.Scope,SymbolTable.SymbolScope.GLOBAL.getValue())) {
+            SetGlobal(symbol.Index,value);
+        }
+        else {
+            f.locals[symbol.Index] = value;
+        }
+    }
+
+    private void heat(Frame f) {
+        if(f.fn != null) {
+            f.fn.scope.heat++;
+        }
+    }
+
+    // Calls an interpreted function, or its compiled form once it is hot.
+    private Object call(Function fn,Object[] args) {
+        var scope = fn.scope;
+        var want = scope.literal.Parameters.size();
+        if(args.length != want) {
+            throw Ops.fail(String.format("wrong number of arguments: want=%d, got=%d", want, args.length));
+        }
+        if(scope.compiled != null || (++scope.heat > program.threshold && compile(program,scope))) {
+            return vm().Call(fn.compiled(!forked),args);
+        }
+        if(depth + 1 >= VM.MaxFrames) {
+            throw Ops.fail("stack overflow");
+        }
+
+        var locals = new Object[scope.numLocals];
+        System.arraycopy(args,0,locals,0,args.length);
+        var frame = new Frame(fn,locals);
+        depth++;
+        try {
+            var value = block(scope.literal.Body,frame);
+            return value == null ? new Object.Null() : value;
+        } catch (Return r) {
+            return r.Value;
+        } finally {
+            depth--;
+        }
+    }
+
+    // Compiles scope's literal unless that has been done or has failed.
+    private static boolean compile(Program p,Resolver.Scope scope) {
+        if(scope.compiled != null) {
+            return true;
+        }
+        if(scope.failed) {
+            return false;
+        }
+        synchronized (p) {
+            if(scope.compiled == null && !scope.failed) {
+                if(p.compiler == null) {
+                    p.compiler = Compiler.ForFunctions(p.tree,p.source);
+                }
+                var fn = p.compiler.CompileFunction(scope.literal,scope.enclosing);
+                if(fn == null) {
+                    scope.failed = true;
+                    return false;
+                }
+                var constants = p.compiler.constants;
+                p.constants.addAll(constants.subList(p.constants.size(),constants.size()));
+                scope.compiled = fn;
+            }
+        }
+        return scope.compiled != null;
+    }
+
+    // Runs compiled functions. It has no program of its own.
+    private VM vm() {
+        if(vm == null) {
+            vm = new VM(new Compiler.Bytecode(new ArrayList<>(),new ArrayList<>()),program.globals);
+            vm.constants = program.constants;
+            vm.Out = Out;
+            if(forked) {
+                vm = vm.Fork();
+            }
+        }
+        return vm;
+    }
+
+    public Object Call(Object fn,Object... args) {
+        if(fn instanceof Function f && f.program == program) {
+            return call(f,args);
+        }
+        if(fn instanceof Object.Closure closure) {
+            return vm().Call(closure,args);
+        }
+        if(fn instanceof Object.Builtin builtin) {
+            // memo keeps the closure it is given, which must be compiled.
+            if(builtin == Memo.memo && args.length > 0 && args[0] instanceof Function f && f.program == program) {
+                args[0] = f.compiled(!forked);
+            }
+            return builtin.Invoke(this,args);
+        }
+        throw Ops.fail("calling non-closure and non-builtin");
+    }
+
+    public Object Compiled(Object fn) {
+        if(fn instanceof Function f && f.program == program) {
+            return f.compiled(!forked);
+        }
+        return fn;
+    }
+
+    public Object GetGlobal(int index) {
+        return program.globals.get(index);
+    }
+
+    // As in the VM, a slot past the end is appended.
+    public void SetGlobal(int index,Object value) {
+        if(forked) {
+            throw new Object.Failure(VM.READ_ONLY);
+        }
+        var globals = program.globals;
+        if(index < globals.size()) {
+            globals.set(index,value);
+            return;
+        }
+        while(globals.size() < index) {
+            globals.add(VM.NULL);
+        }
+        globals.add(value);
+    }
+
+    public Object GetModule(int index,int module) {
+        throw Ops.fail("the evaluator does not run modules");
+    }
+
+    public Evaluator Fork() {
+        var e = new Evaluator(program);
+        e.Out = Out;
+        e.forked = true;
+        return e;
+    }
+
+    public Output Out() {
+        return Out;
+    }
+}
@@ -0,0 +1,251 @@
+package evaluator;
+
+import ast.Ast;
+import compiler.SymbolTable;
+import object.Builtins;
+import object.Object;
+import vm.VM;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+
+// Resolves the names of a program for Evaluator before it runs. It walks the
+// tree in the order Compiler does, with the same SymbolTable, so every name
+// ends up in the slot compiled code gives it and every function literal gets
+// the locals and free variables its compiled form has. A function the
+// evaluator finds hot can then be compiled and called with the values the
+// evaluator already holds. A program the compiler rejects is rejected here
+// with the same message.
+class Resolver {
+    final SymbolTable globals = new SymbolTable();
+    // What each Identifier, LetStatement and AssignStatement names.
+    final IdentityHashMap<Ast.Node,SymbolTable.Symbol> symbols = new IdentityHashMap<>();
+    // The value of each literal. As with a constant, a literal evaluates to
+    // the same object every time.
+    final IdentityHashMap<Ast.Expression,Object> constants = new IdentityHashMap<>();
+    // The keys of each hash literal, in the order they are evaluated.
+    final IdentityHashMap<Ast.HashLiteral,Ast.Expression[]> keys = new IdentityHashMap<>();
+    final IdentityHashMap<Ast.FunctionLiteral,Scope> scopes = new IdentityHashMap<>();
+
+    private SymbolTable table = globals;
+
+    // A function literal, with what it takes to call it and to compile it.
+    static class Scope {
+        final Ast.FunctionLiteral literal;
+        // The names visible where the literal is, as they were there.
+        final SymbolTable enclosing;
+        int numLocals;
+        // The variables of the enclosing function it captures, in the order
+        // of its free slots.
+        ArrayList<SymbolTable.Symbol> free;
+        // The global slot a top-level let binds it to, or -1.
+        int global = -1;
+        // Calls and loop iterations so far.
+        int heat;
+        volatile Object.CompiledFunction compiled;
+        // Set once it has failed to compile; it stays interpreted.
+        volatile boolean failed;
+
+        Scope(Ast.FunctionLiteral l,SymbolTable e) {
+            literal = l;
+            enclosing = e;
+        }
+    }
+
+    Resolver() {
+        for(int i = 0;i < Builtins.builtins.size();i++) {
+            globals.DefineBuiltin(i,Builtins.builtins.get(i).Name);
+        }
+    }
+
+    Object.Error Resolve(Ast.Node node) {
+        if(node instanceof Ast.Program program) {
+            return all(program.Statements);
+        }
+        else if(node instanceof Ast.BlockStatement block) {
+            return all(block.Statements);
+        }
+        else if(node instanceof Ast.ExpressionStatement statement) {
+            return Resolve(statement.Expression);
+        }
+        else if(node instanceof Ast.ReturnStatement statement) {
+            return Resolve(statement.ReturnValue);
+        }
+        else if(node instanceof Ast.LetStatement let) {
+            var symbol = table.Define(let.Name.Value);
+            symbols.put(let,symbol);
+            if(let.Value instanceof Ast.FunctionLiteral fn && table == globals) {
+                var err = Resolve(fn);
+                scopes.get(fn).global = symbol.Index;
+                return err;
+            }
+            return Resolve(let.Value);
+        }
+        else if(node instanceof Ast.AssignStatement assign) {
+            var result = table.Resolve(assign.Name.Value);
+            if(!result.second) {
+                return new Object.Error(String.format("undefined variable %s",assign.Name.Value));
+            }
+            var symbol = result.first;
+            if(!Objects.equals(symbol.Scope,SymbolTable.SymbolScope.GLOBAL.getValue())
+                    && !Objects.equals(symbol.Scope,SymbolTable.SymbolScope.LOCAL.getValue())) {
+                return new Object.Error(String.format("cannot assign to %s",assign.Name.Value));
+            }
+            symbols.put(assign,symbol);
+            return Resolve(assign.Value);
+        }
+        else if(node instanceof Ast.ImportStatement) {
+            if(table != globals) {
+                return new Object.Error("import is only allowed at the top level");
+            }
+            return new Object.Error("import needs a compiled engine: run with -Dmonkey.engine=stack");
+        }
+        else if(node instanceof Ast.WhileStatement loop) {
+            var err = Resolve(loop.Condition);
+            return failed(err) ? err : Resolve(loop.Body);
+        }
+        else if(node instanceof Ast.ForStatement loop) {
+            if(loop.Init != null) {
+                var err = Resolve(loop.Init);
+                if(failed(err)) {
+                    return err;
+                }
+            }
+            var err = Resolve(loop.Condition);
+            if(!failed(err)) {
+                err = Resolve(loop.Body);
+            }
+            if(!failed(err) && loop.Update != null) {
+                err = Resolve(loop.Update);
+            }
+            return err;
+        }
+        else if(node instanceof Ast.IntegerLiteral literal) {
+            constants.put(literal,new Object.Integer(literal.Value));
+        }
+        else if(node instanceof Ast.CharLiteral literal) {
+            constants.put(literal,new Object.Char(literal.Value));
+        }
+        else if(node instanceof Ast.StringLiteral literal) {
+            constants.put(literal,new Object.String(literal.Value));
+        }
+        else if(node instanceof Ast.PrefixExpression prefix) {
+            var err = Resolve(prefix.Right);
+            if(failed(err)) {
+                return err;
+            }
+            if(!Objects.equals(prefix.Operator,"!") && !Objects.equals(prefix.Operator,"-")) {
+                return new Object.Error(String.format("unknown operator %s",prefix.Operator));
+            }
+        }
+        else if(node instanceof Ast.InfixExpression infix) {
+            // Compiled code evaluates the right operand of < and <=
+            // first.
+            var flipped = Objects.equals(infix.Operator,"<") || Objects.equals(infix.Operator,"<=");
+            var err = Resolve(flipped ? infix.Right : infix.Left);
+            if(!failed(err)) {
+                err = Resolve(flipped ? infix.Left : infix.Right);
+            }
+            if(failed(err)) {
+                return err;
+            }
+            if(!Evaluator.Infix.containsKey(infix.Operator)) {
+                return new Object.Error(String.format("unknown operator %s",infix.Operator));
+            }
+        }
+        else if(node instanceof Ast.IfExpression expression) {
+            var err = Resolve(expression.Condition);
+            if(!failed(err)) {
+                err = Resolve(expression.Consequence);
+            }
+            if(!failed(err) && expression.Alternative != null) {
+                err = Resolve(expression.Alternative);
+            }
+            return err;
+        }
+        else if(node instanceof Ast.Identifier identifier) {
+            var result = table.Resolve(identifier.Value);
+            if(!result.second) {
+                return new Object.Error(String.format("undefined variable %s",identifier.Value));
+            }
+            symbols.put(identifier,result.first);
+        }
+        else if(node instanceof Ast.FunctionLiteral fn) {
+            var scope = new Scope(fn,copy(table));
+            scopes.put(fn,scope);
+
+            table = new SymbolTable(table);
+            if(!Objects.equals(fn.Name,"")) {
+                table.DefineFunctionName(fn.Name);
+            }
+            for(var p : fn.Parameters) {
+                table.Define(p.Value);
+            }
+            var err = Resolve(fn.Body);
+            scope.numLocals = table.numDefinitions;
+            scope.free = table.FreeSymbols;
+            table = table.Outer;
+            return err;
+        }
+        else if(node instanceof Ast.CallExpression call) {
+            var err = Resolve(call.Function);
+            for(int i = 0;i < call.Arguments.size() && !failed(err);i++) {
+                err = Resolve(call.Arguments.get(i));
+            }
+            return err;
+        }
+        else if(node instanceof Ast.ArrayLiteral array) {
+            for(var el : array.ELements) {
+                var err = Resolve(el);
+                if(failed(err)) {
+                    return err;
+                }
+            }
+        }
+        else if(node instanceof Ast.IndexExpression index) {
+            var err = Resolve(index.Left);
+            return failed(err) ? err : Resolve(index.Index);
+        }
+        else if(node instanceof Ast.HashLiteral hash) {
+            var sorted = new ArrayList<>(hash.Pairs.keySet());
+            sorted.sort(Comparator.comparing(Ast.Node::String));
+            keys.put(hash,sorted.toArray(new Ast.Expression[0]));
+            for(var k : sorted) {
+                var err = Resolve(k);
+                if(!failed(err)) {
+                    err = Resolve(hash.Pairs.get(k));
+                }
+                if(failed(err)) {
+                    return err;
+                }
+            }
+        }
+        return VM.ERROR;
+    }
+
+    private Object.Error all(ArrayList<Ast.Statement> statements) {
+        for(var s : statements) {
+            var err = Resolve(s);
+            if(failed(err)) {
+                return err;
+            }
+        }
+        return VM.ERROR;
+    }
+
+    private static boolean failed(Object.Error err) {
+        return !Objects.equals(err.Message,"");
+    }
+
+    // A copy of t and the tables around it. Names defined after a literal
+    // must not change what its names resolve to when it is compiled later.
+    private static SymbolTable copy(SymbolTable t) {
+        var c = t.Outer == null ? new SymbolTable() : new SymbolTable(copy(t.Outer));
+        c.store.putAll(t.store);
+        c.numDefinitions = t.numDefinitions;
+        c.FreeSymbols.addAll(t.FreeSymbols);
+        return c;
+    }
+}
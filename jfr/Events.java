@@ -0,0 +1,114 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Flight Recorder events for the compiler and the stack VM. They are off
+// unless a recording enables them, and while off begin, end and commit do
+// nothing, so the code that emits them can stay in place:
+//
+//     java -XX:StartFlightRecording:settings=profile,filename=run.jfr ...
+//
+// records them next to the JVM's own GC and thread events. Each event only
+// fills in its fields once shouldCommit says it will be kept.
+public class Events {
+    // Lexing is driven by the parser a token at a time, so a Lex event runs
+    // from the first token to EOF and overlaps the Parse event.
+    @Name("monkey.Lex")
+    @Label("Lex")
+    @Category({"Monkey", "Compiler"})
+    @Description("A lexer reading its input through to EOF")
+    @StackTrace(false)
+    public static class Lex extends Event {
+        @Label("Characters")
+        public int Characters;
+
+        @Label("Tokens")
+        public int Tokens;
+    }
+
+    @Name("monkey.Parse")
+    @Label("Parse")
+    @Category({"Monkey", "Compiler"})
+    @Description("Parsing a whole program")
+    @StackTrace(false)
+    public static class Parse extends Event {
+        @Label("Parser")
+        public String Parser;
+
+        @Label("Statements")
+        public int Statements;
+
+        @Label("Errors")
+        public int Errors;
+    }
+
+    @Name("monkey.Compile")
+    @Label("Compile")
+    @Category({"Monkey", "Compiler"})
+    @Description("Compiling a program to bytecode")
+    @StackTrace(false)
+    public static class Compile extends Event {
+        @Label("Statements")
+        public int Statements;
+
+        @Label("Instructions")
+        @DataAmount
+        public int Instructions;
+
+        @Label("Constants")
+        public int Constants;
+
+        @Label("Error")
+        public String Error;
+    }
+
+    @Name("monkey.Run")
+    @Label("VM Run")
+    @Category({"Monkey", "VM"})
+    @Description("A stack VM running a program, from Run or Resume until it stops")
+    @StackTrace(false)
+    public static class Run extends Event {
+        @Label("Resumed")
+        public boolean Resumed;
+
+        @Label("Error")
+        public String Error;
+    }
+
+    @Name("monkey.BuiltinCall")
+    @Label("Slow Builtin Call")
+    @Category({"Monkey", "VM"})
+    @Description("A builtin call that took longer than the threshold")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static class BuiltinCall extends Event {
+        @Label("Builtin")
+        public String Builtin;
+
+        @Label("Arguments")
+        public int Arguments;
+    }
+
+    @Name("monkey.Overflow")
+    @Label("Overflow")
+    @Category({"Monkey", "VM"})
+    @Description("A program stopped by a stack overflow")
+    public static class Overflow extends Event {
+        @Label("Kind")
+        @Description("\"stack\" for the operand stack, \"frames\" for the frame stack, \"native\" for the Java stack under JIT-compiled code")
+        public String Kind;
+
+        @Label("Frames")
+        public int Frames;
+
+        @Label("Stack Pointer")
+        public int StackPointer;
+    }
+}
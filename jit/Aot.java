@@ -0,0 +1,219 @@
+package jit;
+
+import code.Code;
+import compiler.Compiler;
+import object.Object;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import static code.Code.Opcode.*;
+
+// Ahead-of-time compiler: turns a Monkey script into a runnable JAR.
+//
+//     java jit.Aot script.monkey script.jar
+//     java -jar script.jar
+//
+// Every CompiledFunction in the constant pool becomes a class aot.Fn<index>,
+// the main instructions become aot.Script, and aot.Program rebuilds the
+// constant pool and runs Script on a NativeRuntime. The JAR also carries the
+// runtime classes it links against, so it needs nothing else on the class
+// path; the lexer, parser and compiler are not loaded at startup.
+public class Aot {
+    public static final String PACKAGE = "aot";
+
+    // Runtime packages copied into the JAR next to the generated classes.
+    private static final List<String> RUNTIME = List.of("object/", "jit/", "vm/", "code/", "compiler/");
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2) {
+            System.err.println("usage: java jit.Aot <script> <output.jar>");
+            System.exit(2);
+        }
+
+        var errors = new ArrayList<String>();
+        var bytecode = Compiler.CompileProgram(Files.readString(Path.of(args[0])), errors);
+        if(bytecode == null) {
+            errors.forEach(System.err::println);
+            System.exit(1);
+        }
+
+        var sources = Generate(bytecode, errors);
+        if(sources == null) {
+            errors.forEach(System.err::println);
+            System.exit(1);
+        }
+
+        var classes = ClassCompiler.Compile(sources, errors);
+        if(classes == null) {
+            errors.forEach(System.err::println);
+            System.exit(1);
+        }
+
+        try (var out = Files.newOutputStream(Path.of(args[1]))) {
+            WriteJar(classes, out);
+        }
+    }
+
+    // Returns the Java sources of the program keyed by class name, or null if
+    // some function uses bytecode the generator cannot translate.
+    public static Map<String, String> Generate(Compiler.Bytecode bytecode,ArrayList<String> errors) {
+        // Modules are linked by the interpreter as they are first used.
+        if(bytecode.Modules.length > 0) {
+            errors.add("cannot compile a program with imports ahead of time");
+            return null;
+        }
+
+        var sources = new LinkedHashMap<String, String>();
+        var constants = bytecode.Constants;
+
+        for(int i = 0;i < constants.size();i++) {
+            if(constants.get(i) instanceof Object.CompiledFunction fn) {
+                var source = SourceGenerator.Generate(fn, PACKAGE, "Fn" + i, false);
+                if(source == null) {
+                    errors.add(String.format("cannot compile function constant %d ahead of time", i));
+                    return null;
+                }
+                sources.put(PACKAGE + ".Fn" + i, source);
+            }
+        }
+
+        // The main instructions simply run off their end; give them an
+        // explicit return so they translate like any other function.
+        var main = new ArrayList<>(bytecode.Instructions);
+        main.addAll(Code.Make(OpReturn.getValue()));
+        var script = SourceGenerator.Generate(new Object.CompiledFunction(main), PACKAGE, "Script", false);
+        if(script == null) {
+            errors.add("cannot compile main program ahead of time");
+            return null;
+        }
+        sources.put(PACKAGE + ".Script", script);
+        sources.put(PACKAGE + ".Program", program(constants));
+
+        return sources;
+    }
+
+    private static String program(List<Object> constants) {
+        var out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("import jit.NativeRuntime;\n");
+        out.append("import object.Object;\n\n");
+        out.append("public final class Program {\n");
+        out.append("    public static void main(String[] args) {\n");
+        out.append("        var k = new Object[").append(constants.size()).append("];\n");
+
+        for(int i = 0;i < constants.size();i++) {
+            var c = constants.get(i);
+            out.append("        k[").append(i).append("] = ");
+            switch (c) {
+                case Object.Integer integer -> out.append("new Object.Integer(").append(integer.Value).append(")");
+                case Object.Char ch -> out.append("new Object.Char((char) ").append((int) ch.Value).append(")");
+                case Object.String string -> out.append("new Object.String(").append(literal(string.Value)).append(")");
+                case Object.CompiledFunction fn -> out.append("new Object.CompiledFunction(new java.util.ArrayList<>(), ")
+                        .append(fn.Numlocals).append(", ").append(fn.Numparameters).append(")");
+                default -> throw new IllegalArgumentException("unsupported constant " + c.Type());
+            }
+            out.append(";\n");
+        }
+        for(int i = 0;i < constants.size();i++) {
+            if(constants.get(i) instanceof Object.CompiledFunction) {
+                out.append("        ((Object.CompiledFunction) k[").append(i).append("]).Native = new Fn").append(i).append("(k);\n");
+            }
+        }
+
+        out.append("        var runtime = new NativeRuntime();\n");
+        out.append("        String failed = null;\n");
+        out.append("        try {\n");
+        out.append("            new Script(k).Invoke(runtime, null, new Object[0]);\n");
+        out.append("        } catch (Object.Failure f) {\n");
+        out.append("            failed = f.Error.Message;\n");
+        out.append("        } catch (StackOverflowError e) {\n");
+        out.append("            failed = \"stack overflow\";\n");
+        out.append("        } finally {\n");
+        out.append("            runtime.Out.Flush();\n");
+        out.append("        }\n");
+        out.append("        if (failed != null) {\n");
+        out.append("            System.out.printf(\"Woops! Executing bytecode failed:\\n %s\\n\", failed);\n");
+        out.append("            System.exit(1);\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        return out.toString();
+    }
+
+    private static String literal(String s) {
+        var out = new StringBuilder("\"");
+        for(var c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if(c < 0x20 || c > 0x7e) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append("\"").toString();
+    }
+
+    public static void WriteJar(Map<String, byte[]> classes,OutputStream out) throws IOException {
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, PACKAGE + ".Program");
+
+        try (var jar = new JarOutputStream(out, manifest)) {
+            for(var entry : classes.entrySet()) {
+                jar.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+
+            var root = runtimeRoot();
+            try (Stream<Path> files = Files.walk(root)) {
+                for(var file : (Iterable<Path>) files::iterator) {
+                    var name = root.relativize(file).toString().replace('\\', '/');
+                    if(!Files.isRegularFile(file) || !name.endsWith(".class") || RUNTIME.stream().noneMatch(name::startsWith)) {
+                        continue;
+                    }
+                    jar.putNextEntry(new JarEntry(name));
+                    jar.write(Files.readAllBytes(file));
+                    jar.closeEntry();
+                }
+            }
+        }
+    }
+
+    // The directory (or JAR file system) these classes were loaded from.
+    private static Path runtimeRoot() throws IOException {
+        try {
+            var location = Path.of(Aot.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if(Files.isDirectory(location)) {
+                return location;
+            }
+            return FileSystems.newFileSystem(location).getPath("/");
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+}
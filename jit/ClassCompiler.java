@@ -0,0 +1,79 @@
+package jit;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compiles generated Java source in memory with the platform compiler and
+// returns the resulting class files keyed by binary class name.
+public class ClassCompiler {
+    public static boolean Available() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    public static Map<String, byte[]> Compile(Map<String, String> sources,ArrayList<String> errors) {
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null) {
+            errors.add("no system Java compiler available");
+            return null;
+        }
+
+        var classes = new HashMap<String, ByteArrayOutputStream>();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        var standard = compiler.getStandardFileManager(diagnostics, null, null);
+
+        var fileManager = new ForwardingJavaFileManager<JavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        var bytes = new ByteArrayOutputStream();
+                        classes.put(className, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+
+        var units = new ArrayList<JavaFileObject>();
+        for(var entry : sources.entrySet()) {
+            var uri = URI.create("string:///" + entry.getKey().replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+            units.add(new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return entry.getValue();
+                }
+            });
+        }
+
+        var options = List.of("-classpath", System.getProperty("java.class.path"), "-g:none", "-nowarn", "-proc:none");
+        var ok = compiler.getTask(null, fileManager, diagnostics, options, null, units).call();
+        if(!ok) {
+            for(var d : diagnostics.getDiagnostics()) {
+                if(d.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.add(d.getMessage(null));
+                }
+            }
+            return null;
+        }
+
+        var result = new HashMap<String, byte[]>();
+        for(var entry : classes.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        return result;
+    }
+}
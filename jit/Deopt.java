@@ -0,0 +1,20 @@
+package jit;
+
+import object.Object;
+
+// Thrown by JIT-compiled code when a type guard fails. It carries everything
+// the interpreter needs to resume the call at Pc: the function's locals and the
+// operand stack as it was before the guarded instruction.
+@SuppressWarnings("serial")
+public class Deopt extends RuntimeException {
+    public int Pc;
+    public Object[] Locals;
+    public Object[] Stack;
+
+    public Deopt(int pc,Object[] locals,Object[] stack) {
+        super(null, null, false, false);
+        Pc = pc;
+        Locals = locals;
+        Stack = stack;
+    }
+}
@@ -0,0 +1,104 @@
+package jit;
+
+import object.Object;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Second execution tier. The VM reports every closure call through Profile;
+// once a function's invocations plus back-edges reach Threshold it is
+// translated to Java by SourceGenerator and loaded as a hidden class. A
+// function of at most -Dmonkey.jit.sync bytes (64 by default) is compiled
+// right there, on the thread that called it; a bigger one is queued for a
+// background thread and keeps running interpreted meanwhile. From then on OpCall runs the
+// native code directly until too many Deopts send it back to the interpreter
+// for good.
+//
+// Enable with -Dmonkey.jit=true. Needs the JDK compiler at run time; on a bare
+// JRE the tier stays disabled.
+public class Jit {
+    public static final int INTERPRETED = 0;
+    public static final int QUEUED = 1;
+    public static final int COMPILED = 2;
+    public static final int FAILED = 3;
+
+    public static final boolean Enabled = Boolean.getBoolean("monkey.jit") && ClassCompiler.Available();
+    public static final int Threshold = Integer.getInteger("monkey.jit.threshold", 1000);
+    public static final int MaxDeopts = Integer.getInteger("monkey.jit.maxdeopts", 16);
+    public static final int SyncBytes = Integer.getInteger("monkey.jit.sync", 64);
+    public static final boolean Log = Boolean.getBoolean("monkey.jit.log");
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private static final ExecutorService compilerThread = Executors.newSingleThreadExecutor(r -> {
+        var t = new Thread(r, "monkey-jit");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public static void Profile(Object.CompiledFunction fn,List<Object> constants) {
+        fn.Invocations++;
+
+        if(fn.JitState == INTERPRETED && fn.Invocations + fn.BackEdges >= Threshold) {
+            fn.JitState = QUEUED;
+            var pool = constants.toArray(new Object[0]);
+            if(fn.Instructions.size() <= SyncBytes) {
+                compile(fn,pool);
+            } else {
+                compilerThread.execute(() -> compile(fn,pool));
+            }
+        }
+    }
+
+    public static void Deoptimized(Object.CompiledFunction fn) {
+        fn.Deopts++;
+
+        if(fn.Deopts >= MaxDeopts && fn.JitState == COMPILED) {
+            fn.Native = null;
+            fn.JitState = FAILED;
+            log("giving up on %s after %d deopts", fn.Label(), fn.Deopts);
+        }
+    }
+
+    static void compile(Object.CompiledFunction fn,Object[] constants) {
+        var className = "Fn" + counter.incrementAndGet();
+        var source = SourceGenerator.Generate(fn, "jit", className, true);
+        if(source == null) {
+            fn.JitState = FAILED;
+            log("cannot translate %s", fn.Label());
+            return;
+        }
+
+        var errors = new ArrayList<String>();
+        var classes = ClassCompiler.Compile(Map.of("jit." + className, source), errors);
+        if(classes == null) {
+            fn.JitState = FAILED;
+            log("javac rejected %s: %s", fn.Label(), errors);
+            return;
+        }
+
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(classes.get("jit." + className), true);
+            var constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object[].class));
+
+            fn.Native = (Object.NativeFunction) constructor.invoke(constants);
+            fn.JitState = COMPILED;
+            log("compiled %s after %d calls, %d back-edges", fn.Label(), fn.Invocations, fn.BackEdges);
+        } catch (Throwable e) {
+            fn.JitState = FAILED;
+            log("cannot load %s: %s", fn.Label(), e);
+        }
+    }
+
+    private static void log(String format,java.lang.Object... args) {
+        if(Log) {
+            System.err.printf("[jit] " + format + "%n", args);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package jit;
+
+import object.Object;
+import object.Output;
+import vm.VM;
+
+import java.util.Objects;
+
+// The Object.Context of ahead-of-time compiled programs. There is no
+// interpreter behind it: every closure must already carry native code.
+public class NativeRuntime implements Object.Context {
+    private final Object[] globals = new Object[VM.GlobalSize];
+    public Output Out = new Output(System.out);
+
+    public Object Call(Object fn,Object... args) {
+        if(fn instanceof Object.Closure cl) {
+            if(!Objects.equals(args.length,cl.Fn.Numparameters)) {
+                throw Ops.fail(String.format("wrong number of arguments: want=%d, got=%d",
+                        cl.Fn.Numparameters,args.length));
+            }
+            var code = cl.Fn.Native;
+            if(code == null) {
+                throw Ops.fail("no native code for " + cl.Fn.Inspect());
+            }
+            return code.Invoke(this,cl,args);
+        }
+        if(fn instanceof Object.Builtin builtin) {
+            var result = builtin.Invoke(this,args);
+            return result == null ? new Object.Null() : result;
+        }
+        throw Ops.fail("calling non-closure and non-builtin");
+    }
+
+    public Object GetGlobal(int index) {
+        return globals[index];
+    }
+
+    public void SetGlobal(int index,Object value) {
+        globals[index] = value;
+    }
+
+    // Aot does not compile programs with imports.
+    public Object GetModule(int index,int module) {
+        throw Ops.fail(String.format("module %d out of range", module));
+    }
+
+    // Native code keeps its state on the Java stack, so one runtime serves
+    // any number of threads.
+    public Object.Context Fork() {
+        return this;
+    }
+
+    public Output Out() {
+        return Out;
+    }
+}
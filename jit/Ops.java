@@ -0,0 +1,157 @@
+package jit;
+
+import object.Builtins;
+import object.Object;
+import vm.VM;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static code.Code.Opcode.*;
+
+// Slow paths for generated code. Every method mirrors the matching execute*
+// method of vm.VM, but returns its result and reports failures by throwing
+// Object.Failure instead of returning an Object.Error.
+public class Ops {
+    public static Object Binary(byte op,Object left,Object right) {
+        if(left instanceof Object.Integer l && right instanceof Object.Integer r) {
+            if (op == OpAdd.getValue()) {
+                return new Object.Integer(l.Value + r.Value);
+            }
+            else if (op == OpSub.getValue()) {
+                return new Object.Integer(l.Value - r.Value);
+            }
+            else if (op == OpMul.getValue()) {
+                return new Object.Integer(l.Value * r.Value);
+            }
+            else if (op == OpDiv.getValue()) {
+                return new Object.Integer(l.Value / r.Value);
+            }
+            throw fail(String.format("unknown integer operator: %d", op));
+        }
+        if(left instanceof Object.String l && right instanceof Object.String r) {
+            if(op != OpAdd.getValue()) {
+                throw fail(String.format("unknown string operator: %d",op));
+            }
+            return new Object.String(l.Value + r.Value);
+        }
+        throw fail(String.format("unsupported types for binary operation: %s %s",
+                left.Type(),right.Type()));
+    }
+
+    public static Object Compare(byte op,Object left,Object right) {
+        if(left instanceof Object.Integer l && right instanceof Object.Integer r) {
+            return compare(op,l.Value,r.Value);
+        }
+        if(left instanceof Object.Char l && right instanceof Object.Char r) {
+            return compare(op,l.Value,r.Value);
+        }
+        if(op == OpEqual.getValue()) {
+            return Bool(left == right);
+        }
+        if(op == OpNotEqual.getValue()) {
+            return Bool(left != right);
+        }
+        throw fail(String.format("unknown operator: %d (%s %s)",
+                op, left.Type(), right.Type()));
+    }
+
+    private static Object compare(byte op,int left,int right) {
+        if (op == OpEqual.getValue()) {
+            return Bool(left == right);
+        }
+        else if (op == OpNotEqual.getValue()) {
+            return Bool(left != right);
+        }
+        else if (op == OpGreaterThan.getValue()) {
+            return Bool(left > right);
+        }
+        else if (op == OpGreater.getValue()) {
+            return Bool(left >= right);
+        }
+        throw fail(String.format("unknown operator: %d", op));
+    }
+
+    public static Object Minus(Object operand) {
+        if(!(operand instanceof Object.Integer i)) {
+            throw fail(String.format("unsupported type for negation: %s",operand.Type()));
+        }
+        return new Object.Integer(-i.Value);
+    }
+
+    public static Object Bang(Object operand) {
+        if(operand == VM.TRUE) {
+            return VM.FALSE;
+        }
+        if(operand == VM.FALSE || operand == VM.NULL) {
+            return VM.TRUE;
+        }
+        return VM.FALSE;
+    }
+
+    public static boolean Truthy(Object obj) {
+        if(obj instanceof Object.Boolean b) {
+            return b.Value;
+        }
+        return !(obj instanceof Object.Null);
+    }
+
+    public static Object Bool(boolean b) {
+        return b ? VM.TRUE : VM.FALSE;
+    }
+
+    public static Object Index(Object.Context ctx,Object left,Object index) {
+        if(left instanceof Object.Array array && index instanceof Object.Integer i) {
+            if(i.Value < 0 || i.Value > array.Elements.size() - 1) {
+                return VM.NULL;
+            }
+            return array.Elements.get(i.Value);
+        }
+        if(left instanceof Object.Hash hash) {
+            if(!(index instanceof Object.Hashable key)) {
+                throw fail(String.format("unusable as hash key: %s",index.Type()));
+            }
+            var pair = hash.Pairs.get(key.Hashkey());
+            return pair == null ? VM.NULL : pair.Value;
+        }
+        if(left instanceof Object.Sequence sequence && index instanceof Object.Integer i) {
+            var element = sequence.At(ctx,i.Value);
+            return element == null ? VM.NULL : element;
+        }
+        throw fail(String.format("index operator not supported: %s",left.Type()));
+    }
+
+    public static Object Array(Object[] elements) {
+        return new Object.Array(new ArrayList<>(Arrays.asList(elements)));
+    }
+
+    public static Object Hash(Object[] keysAndValues) {
+        var hashedPairs = new HashMap<Object.HashKey,Object.HashPair>();
+
+        for(int i = 0;i < keysAndValues.length;i += 2) {
+            var key = keysAndValues[i];
+            if(!(key instanceof Object.Hashable hashKey)) {
+                throw fail(String.format("unusable as hash key: %s", key.Type()));
+            }
+            hashedPairs.put(hashKey.Hashkey(),new Object.HashPair(key,keysAndValues[i + 1]));
+        }
+
+        return new Object.Hash(hashedPairs);
+    }
+
+    public static Object Closure(Object constant,Object[] free) {
+        if(!(constant instanceof Object.CompiledFunction function)) {
+            throw fail("not a function: " + constant);
+        }
+        return new Object.Closure(function,new ArrayList<>(Arrays.asList(free)));
+    }
+
+    public static Object Builtin(int index) {
+        return Builtins.builtins.get(index).Builtin;
+    }
+
+    public static Object.Failure fail(String message) {
+        return new Object.Failure(new Object.Error(message));
+    }
+}
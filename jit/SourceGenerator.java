@@ -0,0 +1,226 @@
+package jit;
+
+import code.Flow;
+import object.Object;
+
+import static code.Code.Opcode.*;
+
+// Translates the bytecode of one CompiledFunction into the Java source of a
+// class implementing Object.NativeFunction. Operand stack slots and locals
+// become JVM locals, and control flow becomes a switch over jump targets
+// inside a loop, so HotSpot sees ordinary straight-line code it can optimize.
+public class SourceGenerator {
+    private final Object.CompiledFunction fn;
+    private final boolean deoptimize;
+    private Flow flow;
+    private final StringBuilder out = new StringBuilder();
+
+    // With deoptimize set, failed type guards throw Deopt so the interpreter
+    // can take over. Without it (ahead-of-time code, which has no interpreter
+    // to fall back on) they take the generic slow path in Ops instead.
+    public SourceGenerator(Object.CompiledFunction f,boolean d) {
+        fn = f;
+        deoptimize = d;
+    }
+
+    // Returns null when the function uses bytecode this generator cannot
+    // translate, in which case it simply stays in the interpreter.
+    public static String Generate(Object.CompiledFunction fn,String packageName,String className,boolean deoptimize) {
+        var generator = new SourceGenerator(fn,deoptimize);
+        generator.flow = Flow.Analyze(fn.Instructions);
+        if(generator.flow.Error != null || generator.flow.FallsOff) {
+            return null;
+        }
+        return generator.emit(packageName,className);
+    }
+
+    private String emit(String packageName,String className) {
+        var targets = flow.JumpTargets();
+        targets[0] = true;
+
+        line(0,"package " + packageName + ";");
+        line(0,"");
+        line(0,"import jit.Deopt;");
+        line(0,"import jit.Ops;");
+        line(0,"import object.Object;");
+        line(0,"import vm.VM;");
+        line(0,"");
+        line(0,"public final class " + className + " implements Object.NativeFunction {");
+        line(1,"private final Object[] k;");
+        line(0,"");
+        line(1,"public " + className + "(Object[] k) {");
+        line(2,"this.k = k;");
+        line(1,"}");
+        line(0,"");
+        line(1,"public Object Invoke(Object.Context ctx, Object.Closure self, Object[] args) {");
+        for(int l = 0;l < fn.Numlocals;l++) {
+            line(2,"Object l" + l + " = " + (l < fn.Numparameters ? "args[" + l + "]" : "null") + ";");
+        }
+        for(int s = 0;s < flow.MaxDepth;s++) {
+            line(2,"Object s" + s + " = null;");
+        }
+        line(2,"int pc = 0;");
+        line(2,"while (true) {");
+        line(3,"switch (pc) {");
+        for(var i : flow.Instructions) {
+            if(targets[i.Pc]) {
+                line(4,"case " + i.Pc + ":");
+            }
+            if(flow.Depths[i.Pc] != -1) {
+                instruction(i,flow.Depths[i.Pc]);
+            }
+        }
+        line(3,"}");
+        line(3,"throw new IllegalStateException(\"no instruction at \" + pc);");
+        line(2,"}");
+        line(1,"}");
+        line(0,"}");
+
+        return out.toString();
+    }
+
+    private void instruction(Flow.Instruction i,int d) {
+        var op = i.Op;
+        var top = "s" + (d - 1);
+        var second = "s" + (d - 2);
+
+        if(op == OpConstant.getValue()) {
+            line(5,"s" + d + " = k[" + i.Operands[0] + "];");
+        }
+        else if(op == OpPop.getValue()) {
+            line(5,top + " = null;");
+        }
+        else if(op == OpAdd.getValue() || op == OpSub.getValue() || op == OpMul.getValue() || op == OpDiv.getValue()) {
+            var symbol = op == OpAdd.getValue() ? "+" : op == OpSub.getValue() ? "-" : op == OpMul.getValue() ? "*" : "/";
+            var a = "a" + i.Pc;
+            var b = "b" + i.Pc;
+            var guard = second + " instanceof Object.Integer " + a + " && " + top + " instanceof Object.Integer " + b;
+            if(op == OpDiv.getValue()) {
+                guard += " && " + b + ".Value != 0";
+            }
+            line(5,"if (" + guard + ") {");
+            line(6,second + " = new Object.Integer(" + a + ".Value " + symbol + " " + b + ".Value);");
+            line(5,"} else {");
+            slowPath(i,d,second + " = Ops.Binary((byte) " + op + ", " + second + ", " + top + ");");
+            line(5,"}");
+        }
+        else if(op == OpEqual.getValue() || op == OpNotEqual.getValue() || op == OpGreaterThan.getValue() || op == OpGreater.getValue()) {
+            var symbol = op == OpEqual.getValue() ? "==" : op == OpNotEqual.getValue() ? "!=" : op == OpGreaterThan.getValue() ? ">" : ">=";
+            var a = "a" + i.Pc;
+            var b = "b" + i.Pc;
+            line(5,"if (" + second + " instanceof Object.Integer " + a + " && " + top + " instanceof Object.Integer " + b + ") {");
+            line(6,second + " = " + a + ".Value " + symbol + " " + b + ".Value ? VM.TRUE : VM.FALSE;");
+            line(5,"} else {");
+            slowPath(i,d,second + " = Ops.Compare((byte) " + op + ", " + second + ", " + top + ");");
+            line(5,"}");
+        }
+        else if(op == OpMinus.getValue()) {
+            var a = "a" + i.Pc;
+            line(5,"if (" + top + " instanceof Object.Integer " + a + ") {");
+            line(6,top + " = new Object.Integer(-" + a + ".Value);");
+            line(5,"} else {");
+            slowPath(i,d,top + " = Ops.Minus(" + top + ");");
+            line(5,"}");
+        }
+        else if(op == OpBang.getValue()) {
+            line(5,top + " = Ops.Bang(" + top + ");");
+        }
+        else if(op == OpTrue.getValue()) {
+            line(5,"s" + d + " = VM.TRUE;");
+        }
+        else if(op == OpFalse.getValue()) {
+            line(5,"s" + d + " = VM.FALSE;");
+        }
+        else if(op == OpNull.getValue()) {
+            line(5,"s" + d + " = VM.NULL;");
+        }
+        else if(op == OpJump.getValue()) {
+            line(5,"pc = " + i.Operands[0] + ";");
+            line(5,"continue;");
+        }
+        else if(op == OpJumpNotTruthy.getValue()) {
+            line(5,"if (!Ops.Truthy(" + top + ")) {");
+            line(6,"pc = " + i.Operands[0] + ";");
+            line(6,"continue;");
+            line(5,"}");
+        }
+        else if(op == OpGetGlobal.getValue()) {
+            line(5,"s" + d + " = ctx.GetGlobal(" + i.Operands[0] + ");");
+        }
+        else if(op == OpSetGlobal.getValue()) {
+            line(5,"ctx.SetGlobal(" + i.Operands[0] + ", " + top + ");");
+        }
+        else if(op == OpGetModule.getValue()) {
+            line(5,"s" + d + " = ctx.GetModule(" + i.Operands[0] + ", " + i.Operands[1] + ");");
+        }
+        else if(op == OpArray.getValue()) {
+            var n = i.Operands[0];
+            line(5,"s" + (d - n) + " = Ops.Array(" + slots(d - n,d) + ");");
+        }
+        else if(op == OpHash.getValue()) {
+            var n = i.Operands[0];
+            line(5,"s" + (d - n) + " = Ops.Hash(" + slots(d - n,d) + ");");
+        }
+        else if(op == OpIndex.getValue()) {
+            line(5,second + " = Ops.Index(ctx, " + second + ", " + top + ");");
+        }
+        else if(op == OpCall.getValue()) {
+            var n = i.Operands[0];
+            var callee = "s" + (d - n - 1);
+            line(5,callee + " = ctx.Call(" + callee + ", " + slots(d - n,d) + ");");
+        }
+        else if(op == OpReturnValue.getValue()) {
+            line(5,"return " + top + ";");
+        }
+        else if(op == OpReturn.getValue()) {
+            line(5,"return new Object.Null();");
+        }
+        else if(op == OpGetLocal.getValue()) {
+            line(5,"s" + d + " = l" + i.Operands[0] + ";");
+        }
+        else if(op == OpSetLocal.getValue()) {
+            line(5,"l" + i.Operands[0] + " = " + top + ";");
+        }
+        else if(op == OpGetBuiltin.getValue()) {
+            line(5,"s" + d + " = Ops.Builtin(" + i.Operands[0] + ");");
+        }
+        else if(op == OpClosure.getValue()) {
+            var n = i.Operands[1];
+            line(5,"s" + (d - n) + " = Ops.Closure(k[" + i.Operands[0] + "], " + slots(d - n,d) + ");");
+        }
+        else if(op == OpGetFree.getValue()) {
+            line(5,"s" + d + " = self.Free.get(" + i.Operands[0] + ");");
+        }
+        else if(op == OpCurrentClosure.getValue()) {
+            line(5,"s" + d + " = self;");
+        }
+        else {
+            throw new IllegalStateException("unhandled opcode " + op);
+        }
+    }
+
+    private void slowPath(Flow.Instruction i,int d,String generic) {
+        if(deoptimize) {
+            var locals = new StringBuilder();
+            for(int l = 0;l < fn.Numlocals;l++) {
+                locals.append(l == 0 ? "" : ", ").append("l").append(l);
+            }
+            line(6,"throw new Deopt(" + i.Pc + ", new Object[]{" + locals + "}, " + slots(0,d) + ");");
+        }
+        else {
+            line(6,generic);
+        }
+    }
+
+    private static String slots(int from,int to) {
+        var s = new StringBuilder("new Object[]{");
+        for(int i = from;i < to;i++) {
+            s.append(i == from ? "" : ", ").append("s").append(i);
+        }
+        return s.append("}").toString();
+    }
+
+    private void line(int indent,String text) {
+        out.append("    ".repeat(indent)).append(text).append("\n");
+    }
+}
@@ -1,23 +1,46 @@
 package lexer;
 
+import jfr.Events;
 import token.Token;
 import java.util.Objects;
 
 public class Lexer {
     private final String input;
+    // Offset lexing stops at, as if the input ended there.
+    private final int end;
     private int curPosition;
     private int nextPosition;
     private char ch;
 
+    // Timed from the first token to EOF when lexing a whole input.
+    private Events.Lex event;
+    private int tokens;
+
     public Lexer(String input) {
+        this(input,0);
+        event = new Events.Lex();
+        event.begin();
+    }
+
+    // Starts lexing at offset position of input.
+    public Lexer(String input,int position) {
+        this(input,position,input.length());
+    }
+
+    // Lexes input[start, end). Token positions are still offsets into input.
+    public Lexer(String input,int start,int end) {
         this.input = input;
+        this.end = end;
+        nextPosition = start;
         readNext();
     }
 
     public Token NextToken() {
         Token tok;
+        tokens++;
 
         skipWhitespace();
+        var start = curPosition;
 
         switch(ch) {
             case '=':
@@ -103,15 +126,18 @@ public class Lexer {
                 break;
             case 0:
                 tok = new Token(Token.EOF,"");
+                lexed();
                 break;
             default:
                 if(Character.isLetter(ch) || Objects.equals(ch,'_')) {
                     String tmp = readIdentifier();
                     tok = new Token(Token.LookupIdent(tmp),tmp);
+                    tok.Position = start;
                     return tok;
                 }
                 else if(Character.isDigit(ch)) {
                     tok = new Token(Token.INT,readNumber());
+                    tok.Position = start;
                     return tok;
                 }
                 else {
@@ -121,9 +147,23 @@ public class Lexer {
         }
 
         readNext();
+        tok.Position = start;
         return tok;
     }
 
+    private void lexed() {
+        if(event == null) {
+            return;
+        }
+        event.end();
+        if(event.shouldCommit()) {
+            event.Characters = input.length();
+            event.Tokens = tokens;
+            event.commit();
+        }
+        event = null;
+    }
+
     private void skipWhitespace() {
         while(Objects.equals(ch,' ') || Objects.equals(ch,'\t') || Objects.equals(ch,'\n') || Objects.equals(ch,'\r')) {
             readNext();
@@ -131,7 +171,7 @@ public class Lexer {
     }
 
     private void readNext() {
-        if(nextPosition >= input.length()) {
+        if(nextPosition >= end) {
             ch = 0;
         }
         else {
@@ -142,7 +182,7 @@ public class Lexer {
     }
 
     private char peekChar() {
-        if(nextPosition >= input.length()) {
+        if(nextPosition >= end) {
             return 0;
         }
         else {
@@ -0,0 +1,588 @@
+package parser;
+
+import ast.Arena;
+import jfr.Events;
+import lexer.Lexer;
+import token.Token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static parser.Parser.Precedence;
+import static parser.Parser.precedences;
+
+// Parses the same grammar as Parser, with the same error messages, but
+// builds an Arena instead of Ast objects. Node methods return the index of
+// the node they added, or -1 where Parser would return null.
+public class ArenaParser {
+    public Lexer l;
+    public ArrayList<String> errors = new ArrayList<>();
+    public Token curToken;
+    public Token peekToken;
+    private final Arena arena;
+
+    // Children of the lists being parsed. A list's items sit on top of the
+    // stack until it is complete and copied into the arena.
+    private int[] stack = new int[64];
+    private int top;
+
+    public ArenaParser(String input) {
+        l = new Lexer(input);
+        arena = new Arena(input);
+
+        nextToken();
+        nextToken();
+    }
+
+    private void nextToken() {
+        curToken = peekToken;
+        peekToken = l.NextToken();
+    }
+
+    public boolean curTokenIs(String t) {
+        return Objects.equals(curToken.Type,t);
+    }
+
+    public boolean peekTokenIs(String t) {
+        return Objects.equals(peekToken.Type,t);
+    }
+
+    public boolean expectPeek(String t) {
+        if(peekTokenIs(t)) {
+            nextToken();
+            return true;
+        }
+        else {
+            peekError(t);
+            return false;
+        }
+    }
+
+    public ArrayList<String> Errors() {
+        return errors;
+    }
+
+    public void peekError(String t) {
+        errors.add(String.format("expected next token to be %s, got %s instead",t,peekToken.Type));
+    }
+
+    public void noPrefixParseFnError(String t) {
+        errors.add(String.format("no prefix parse function for %s found",t));
+    }
+
+    private void push(int node) {
+        if(top == stack.length) {
+            stack = Arrays.copyOf(stack, top * 2);
+        }
+        stack[top++] = node;
+    }
+
+    // Moves the items pushed since mark into the arena and returns the list's
+    // offset.
+    private int list(int mark) {
+        var offset = arena.AddList(stack, mark, top);
+        top = mark;
+        return offset;
+    }
+
+    public Arena ParseProgram() {
+        var event = new Events.Parse();
+        event.begin();
+        var mark = top;
+        while(!curTokenIs(Token.EOF)) {
+            var stmt = parseStatement();
+            if(stmt != -1) {
+                push(stmt);
+            }
+            nextToken();
+        }
+
+        var n = top - mark;
+        arena.Root = arena.Add(Arena.PROGRAM, 0, list(mark), n, -1, -1);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.Parser = "arena";
+            event.Statements = n;
+            event.Errors = errors.size();
+            event.commit();
+        }
+        return arena;
+    }
+
+    public int parseStatement() {
+        return switch (curToken.Type) {
+            case Token.LET -> parseLetStatement();
+            case Token.RETURN -> parseReturnStatement();
+            case Token.WHILE -> parseWhileStatement();
+            case Token.FOR -> parseForStatement();
+            case Token.IMPORT -> parseImportStatement();
+            case Token.IDENT -> peekTokenIs(Token.ASSIGN) ? parseAssignStatement() : parseExpressionStatement();
+            default -> parseExpressionStatement();
+        };
+    }
+
+    public int parseAssignStatement() {
+        var position = curToken.Position;
+        var name = arena.Intern(curToken.Literal);
+
+        if(!expectPeek(Token.ASSIGN)) {
+            return -1;
+        }
+
+        nextToken();
+
+        var value = parseExpression(Precedence.LOWEST.getValue());
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return arena.Add(Arena.ASSIGN, position, name, value, -1, -1);
+    }
+
+    public int parseWhileStatement() {
+        var position = curToken.Position;
+
+        if(!expectPeek(Token.LPAREN)) {
+            return -1;
+        }
+
+        nextToken();
+        var condition = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.RPAREN)) {
+            return -1;
+        }
+
+        if(!expectPeek(Token.LBRACE)) {
+            return -1;
+        }
+
+        var body = parseBlockStatement();
+
+        return arena.Add(Arena.WHILE, position, condition, body, -1, -1);
+    }
+
+    public int parseForStatement() {
+        var position = curToken.Position;
+
+        if(!expectPeek(Token.LPAREN)) {
+            return -1;
+        }
+
+        nextToken();
+        var init = -1;
+        if(!curTokenIs(Token.SEMICOLON)) {
+            init = switch (curToken.Type) {
+                case Token.LET -> parseLetStatement();
+                case Token.IDENT -> parseAssignStatement();
+                default -> {
+                    errors.add(String.format("expected let or assignment in for, got %s instead",curToken.Type));
+                    yield -1;
+                }
+            };
+            if(init == -1) {
+                return -1;
+            }
+            if(!curTokenIs(Token.SEMICOLON) && !expectPeek(Token.SEMICOLON)) {
+                return -1;
+            }
+        }
+
+        nextToken();
+        var condition = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.SEMICOLON)) {
+            return -1;
+        }
+
+        var update = -1;
+        if(!peekTokenIs(Token.RPAREN)) {
+            if(!expectPeek(Token.IDENT)) {
+                return -1;
+            }
+            update = parseAssignStatement();
+            if(update == -1) {
+                return -1;
+            }
+        }
+
+        if(!expectPeek(Token.RPAREN)) {
+            return -1;
+        }
+
+        if(!expectPeek(Token.LBRACE)) {
+            return -1;
+        }
+
+        var body = parseBlockStatement();
+
+        return arena.Add(Arena.FOR, position, init, condition, update, body);
+    }
+
+    public int parseLetStatement() {
+        var position = curToken.Position;
+
+        if(!expectPeek(Token.IDENT)) {
+            return -1;
+        }
+
+        var name = arena.Intern(curToken.Literal);
+
+        if(!expectPeek(Token.ASSIGN)) {
+            return -1;
+        }
+
+        nextToken();
+
+        var value = parseExpression(Precedence.LOWEST.getValue());
+
+        if(value != -1 && arena.Kind(value) == Arena.FUNCTION) {
+            arena.SetFunctionName(value, name);
+        }
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return arena.Add(Arena.LET, position, name, value, -1, -1);
+    }
+
+    public int parseReturnStatement() {
+        var position = curToken.Position;
+
+        nextToken();
+
+        var value = parseExpression(Precedence.LOWEST.getValue());
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return arena.Add(Arena.RETURN, position, value, -1, -1, -1);
+    }
+
+    public int parseImportStatement() {
+        var position = curToken.Position;
+
+        if(!expectPeek(Token.STRING)) {
+            return -1;
+        }
+        var path = arena.Intern(curToken.Literal);
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return arena.Add(Arena.IMPORT, position, path, -1, -1, -1);
+    }
+
+    public int parseExpressionStatement() {
+        var position = curToken.Position;
+
+        var expression = parseExpression(Precedence.LOWEST.getValue());
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return arena.Add(Arena.EXPRESSION, position, expression, -1, -1, -1);
+    }
+
+    public int parseExpression(int precedence) {
+        var leftExp = switch (curToken.Type) {
+            case Token.IDENT -> arena.Add(Arena.IDENT, curToken.Position, arena.Intern(curToken.Literal), -1, -1, -1);
+            case Token.INT -> parseIntegerLiteral();
+            case Token.CHAR -> parseCharLiteral();
+            case Token.STRING -> arena.Add(Arena.STRING, curToken.Position, arena.Intern(curToken.Literal), -1, -1, -1);
+            case Token.BANG, Token.MINUS -> parsePrefixExpression();
+            case Token.TRUE, Token.FALSE -> arena.Add(Arena.BOOLEAN, curToken.Position, curTokenIs(Token.TRUE) ? 1 : 0, -1, -1, -1);
+            case Token.LPAREN -> parseGroupedExpression();
+            case Token.IF -> parseIfExpression();
+            case Token.FUNCTION -> parseFunctionLiteral();
+            case Token.LBRACKET -> parseArrayLiteral();
+            case Token.LBRACE -> parseHashLiteral();
+            default -> {
+                noPrefixParseFnError(curToken.Type);
+                yield -2;
+            }
+        };
+        if(leftExp == -2) {
+            return -1;
+        }
+
+        while(!peekTokenIs(Token.SEMICOLON) && precedence < peekPrecedence()) {
+            switch (peekToken.Type) {
+                case Token.PLUS, Token.MINUS, Token.SLASH, Token.ASTERISK, Token.EQ, Token.NOT_EQ,
+                        Token.LT, Token.LTASSIGN, Token.GT, Token.GTASSIGN -> {
+                    nextToken();
+                    leftExp = parseInfixExpression(leftExp);
+                }
+                case Token.LPAREN -> {
+                    nextToken();
+                    leftExp = parseCallExpression(leftExp);
+                }
+                case Token.LBRACKET -> {
+                    nextToken();
+                    leftExp = parseIndexExpression(leftExp);
+                }
+                default -> {
+                    return leftExp;
+                }
+            }
+        }
+
+        return leftExp;
+    }
+
+    public int peekPrecedence() {
+        if(precedences.containsKey(peekToken.Type)) {
+            return precedences.get(peekToken.Type);
+        }
+
+        return Precedence.LOWEST.getValue();
+    }
+
+    public int curPrecedence() {
+        if(precedences.containsKey(curToken.Type)) {
+            return precedences.get(curToken.Type);
+        }
+
+        return Precedence.LOWEST.getValue();
+    }
+
+    public int parseIntegerLiteral() {
+        int value = 0;
+        try {
+            value = Integer.parseInt(curToken.Literal);
+        } catch (NumberFormatException err) {
+            errors.add(String.format("could not parse %s as integer",curToken.Literal));
+        }
+
+        return arena.Add(Arena.INTEGER, curToken.Position, value, -1, -1, -1);
+    }
+
+    public int parsePrefixExpression() {
+        var position = curToken.Position;
+        var operator = arena.Intern(curToken.Literal);
+
+        nextToken();
+
+        var right = parseExpression(Precedence.PREFIX.getValue());
+
+        return arena.Add(Arena.PREFIX, position, operator, right, -1, -1);
+    }
+
+    public int parseInfixExpression(int left) {
+        var position = curToken.Position;
+        var operator = arena.Intern(curToken.Literal);
+
+        var precedence = curPrecedence();
+        nextToken();
+        var right = parseExpression(precedence);
+
+        return arena.Add(Arena.INFIX, position, operator, left, right, -1);
+    }
+
+    public int parseGroupedExpression() {
+        nextToken();
+
+        var exp = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.RPAREN)) {
+            return -1;
+        }
+
+        return exp;
+    }
+
+    public int parseIfExpression() {
+        var position = curToken.Position;
+
+        if(!expectPeek(Token.LPAREN)) {
+            return -1;
+        }
+
+        nextToken();
+        var condition = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.RPAREN)) {
+            return -1;
+        }
+
+        if(!expectPeek(Token.LBRACE)) {
+            return -1;
+        }
+
+        var consequence = parseBlockStatement();
+
+        var alternative = -1;
+        if(peekTokenIs(Token.ELSE)) {
+            nextToken();
+
+            if(!expectPeek(Token.LBRACE)) {
+                return -1;
+            }
+
+            alternative = parseBlockStatement();
+        }
+
+        return arena.Add(Arena.IF, position, condition, consequence, alternative, -1);
+    }
+
+    public int parseBlockStatement() {
+        var position = curToken.Position;
+        var mark = top;
+
+        nextToken();
+
+        while(!curTokenIs(Token.RBRACE) && !curTokenIs(Token.EOF)) {
+            var stmt = parseStatement();
+            if(stmt != -1) {
+                push(stmt);
+            }
+            nextToken();
+        }
+
+        var n = top - mark;
+        return arena.Add(Arena.BLOCK, position, list(mark), n, -1, -1);
+    }
+
+    public int parseFunctionLiteral() {
+        var position = curToken.Position;
+
+        if(!expectPeek(Token.LPAREN)) {
+            return -1;
+        }
+
+        var mark = top;
+        parseFunctionParameters();
+        var n = top - mark;
+        var parameters = list(mark);
+
+        if(!expectPeek(Token.LBRACE)) {
+            return -1;
+        }
+
+        var body = parseBlockStatement();
+
+        return arena.Add(Arena.FUNCTION, position, parameters, n, body, -1);
+    }
+
+    // Pushes the parameters as IDENT nodes.
+    private void parseFunctionParameters() {
+        if(peekTokenIs(Token.RPAREN)) {
+            nextToken();
+            return;
+        }
+
+        nextToken();
+
+        push(arena.Add(Arena.IDENT, curToken.Position, arena.Intern(curToken.Literal), -1, -1, -1));
+
+        while(peekTokenIs(Token.COMMA)) {
+            nextToken();
+            nextToken();
+            push(arena.Add(Arena.IDENT, curToken.Position, arena.Intern(curToken.Literal), -1, -1, -1));
+        }
+
+        expectPeek(Token.RPAREN);
+    }
+
+    public int parseCallExpression(int function) {
+        var position = curToken.Position;
+        var mark = top;
+        parseExpressionList(Token.RPAREN);
+        var n = top - mark;
+        return arena.Add(Arena.CALL, position, function, list(mark), n, -1);
+    }
+
+    // Pushes the expressions up to end.
+    private void parseExpressionList(String end) {
+        if(peekTokenIs(end)) {
+            nextToken();
+            return;
+        }
+
+        nextToken();
+        push(parseExpression(Precedence.LOWEST.getValue()));
+
+        while(peekTokenIs(Token.COMMA)) {
+            nextToken();
+            nextToken();
+            push(parseExpression(Precedence.LOWEST.getValue()));
+        }
+
+        expectPeek(end);
+    }
+
+    public int parseArrayLiteral() {
+        var position = curToken.Position;
+        var mark = top;
+        parseExpressionList(Token.RBRACKET);
+        var n = top - mark;
+        return arena.Add(Arena.ARRAY, position, list(mark), n, -1, -1);
+    }
+
+    public int parseIndexExpression(int left) {
+        var position = curToken.Position;
+
+        nextToken();
+        var index = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.RBRACKET)) {
+            return -1;
+        }
+
+        return arena.Add(Arena.INDEX, position, left, index, -1, -1);
+    }
+
+    public int parseHashLiteral() {
+        var position = curToken.Position;
+        var mark = top;
+
+        while(!peekTokenIs(Token.RBRACE)) {
+            nextToken();
+            var key = parseExpression(Precedence.LOWEST.getValue());
+
+            if(!expectPeek(Token.COLON)) {
+                top = mark;
+                return -1;
+            }
+
+            nextToken();
+            var value = parseExpression(Precedence.LOWEST.getValue());
+
+            push(key);
+            push(value);
+
+            if(!peekTokenIs(Token.RBRACE) && !expectPeek(Token.COMMA)) {
+                top = mark;
+                return -1;
+            }
+        }
+
+        if(!expectPeek(Token.RBRACE)) {
+            top = mark;
+            return -1;
+        }
+
+        var n = (top - mark) / 2;
+        return arena.Add(Arena.HASH, position, list(mark), n, -1, -1);
+    }
+
+    public int parseCharLiteral() {
+        char value = 0;
+
+        if (curToken.Literal.length() > 1) {
+            errors.add(String.format("could not parse %s as char",curToken.Literal));
+        }
+        else {
+            value = curToken.Literal.charAt(0);
+        }
+
+        return arena.Add(Arena.CHAR, curToken.Position, value, -1, -1, -1);
+    }
+}
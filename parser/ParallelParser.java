@@ -0,0 +1,119 @@
+package parser;
+
+import ast.Ast;
+import jfr.Events;
+import lexer.Lexer;
+import object.Parallel;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinTask;
+
+// Parses a large program in pieces at the same time, enabled with
+// -Dmonkey.parse.parallel=true. A scan of the text finds the semicolons
+// that are outside any brackets, strings and chars; every top-level
+// statement ends at one, so the text between them parses on its own. The
+// pieces are parsed by Parsers on Parallel.Pool, each lexing only its own
+// range, so token positions are still offsets into the whole text, and
+// their statements are put back together in order.
+//
+// A piece that does not parse may have been cut where the sequential parser
+// would have read on, so if any piece has errors the whole text is parsed
+// again by one Parser and its errors are the ones reported. Text shorter
+// than Chunk, or with the flag off, is parsed by one Parser from the start.
+public class ParallelParser {
+    public static final boolean Enabled = Boolean.getBoolean("monkey.parse.parallel");
+    // The least text worth a piece of its own.
+    public static final int Chunk = Integer.getInteger("monkey.parse.chunk", 64 * 1024);
+
+    private final String input;
+    private ArrayList<String> errors = new ArrayList<>();
+
+    public ParallelParser(String input) {
+        this.input = input;
+    }
+
+    public ArrayList<String> Errors() {
+        return errors;
+    }
+
+    public Ast.Program ParseProgram() {
+        var pieces = Enabled ? Split(input,Math.max(Chunk,input.length() / (4 * Parallel.Pool.getParallelism()))) : null;
+        if(pieces == null || pieces.size() < 3) {
+            return sequential();
+        }
+
+        var event = new Events.Parse();
+        event.begin();
+        var tasks = new ArrayList<ForkJoinTask<Piece>>();
+        for(int i = 0;i + 1 < pieces.size();i++) {
+            var start = pieces.get(i);
+            var end = pieces.get(i + 1);
+            tasks.add(Parallel.Pool.submit(() -> {
+                var p = new Parser(new Lexer(input,start,end));
+                return new Piece(p.ParseProgram(),p.Errors());
+            }));
+        }
+
+        var program = new Ast.Program();
+        program.Statements = new ArrayList<>();
+        for(var task : tasks) {
+            var piece = task.join();
+            if(!piece.errors.isEmpty()) {
+                tasks.forEach(t -> t.cancel(false));
+                return sequential();
+            }
+            program.Statements.addAll(piece.program.Statements);
+        }
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.Parser = "parallel";
+            event.Statements = program.Statements.size();
+            event.commit();
+        }
+        return program;
+    }
+
+    private record Piece(Ast.Program program,ArrayList<String> errors) {}
+
+    private Ast.Program sequential() {
+        var p = new Parser(new Lexer(input));
+        var program = p.ParseProgram();
+        errors = p.Errors();
+        return program;
+    }
+
+    // The offsets input is cut at: 0, the end of each piece and the end of
+    // input. A piece ends just after a top-level semicolon once it is at
+    // least size long. A closing bracket with no opening one stops the
+    // scan, leaving the rest as one piece.
+    public static ArrayList<Integer> Split(String input,int size) {
+        var cuts = new ArrayList<Integer>();
+        cuts.add(0);
+        int depth = 0;
+        int start = 0;
+        for(int i = 0;i < input.length() && depth >= 0;i++) {
+            switch(input.charAt(i)) {
+                case '(', '[', '{' -> depth++;
+                case ')', ']', '}' -> depth--;
+                // Strings and chars run to the next quote, as the lexer
+                // reads them.
+                case '"', '\'' -> {
+                    var close = input.indexOf(input.charAt(i),i + 1);
+                    i = close < 0 ? input.length() : close;
+                }
+                case ';' -> {
+                    if(depth == 0 && i + 1 - start >= size) {
+                        start = i + 1;
+                        cuts.add(start);
+                    }
+                }
+                default -> {}
+            }
+        }
+        if(start < input.length()) {
+            cuts.add(input.length());
+        }
+        return cuts;
+    }
+}
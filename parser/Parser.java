@@ -1,6 +1,7 @@
 package parser;
 
 import ast.Ast;
+import jfr.Events;
 import lexer.Lexer;
 import token.Token;
 import java.util.ArrayList;
@@ -133,6 +134,8 @@ public class Parser {
     }
 
     public Ast.Program ParseProgram() {
+        var event = new Events.Parse();
+        event.begin();
         var program = new Ast.Program();
         program.Statements = new ArrayList<>();
 
@@ -144,6 +147,13 @@ public class Parser {
             nextToken();
         }
 
+        event.end();
+        if(event.shouldCommit()) {
+            event.Parser = "ast";
+            event.Statements = program.Statements.size();
+            event.Errors = errors.size();
+            event.commit();
+        }
         return program;
     }
 
@@ -151,10 +161,111 @@ public class Parser {
         return switch (curToken.Type) {
             case Token.LET -> parseLetStatement();
             case Token.RETURN -> parseReturnStatement();
+            case Token.WHILE -> parseWhileStatement();
+            case Token.FOR -> parseForStatement();
+            case Token.IMPORT -> parseImportStatement();
+            case Token.IDENT -> peekTokenIs(Token.ASSIGN) ? parseAssignStatement() : parseExpressionstatement();
             default -> parseExpressionstatement();
         };
     }
 
+    public Ast.AssignStatement parseAssignStatement() {
+        var stmt = new Ast.AssignStatement(curToken);
+        stmt.Name = new Ast.Identifier(curToken,curToken.Literal);
+
+        if(!expectPeek(Token.ASSIGN)) {
+            return null;
+        }
+
+        nextToken();
+
+        stmt.Value = parseExpression(Precedence.LOWEST.getValue());
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return stmt;
+    }
+
+    public Ast.WhileStatement parseWhileStatement() {
+        var stmt = new Ast.WhileStatement(curToken);
+
+        if(!expectPeek(Token.LPAREN)) {
+            return null;
+        }
+
+        nextToken();
+        stmt.Condition = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.RPAREN)) {
+            return null;
+        }
+
+        if(!expectPeek(Token.LBRACE)) {
+            return null;
+        }
+
+        stmt.Body = parseBlockStatement();
+
+        return stmt;
+    }
+
+    public Ast.ForStatement parseForStatement() {
+        var stmt = new Ast.ForStatement(curToken);
+
+        if(!expectPeek(Token.LPAREN)) {
+            return null;
+        }
+
+        nextToken();
+        if(!curTokenIs(Token.SEMICOLON)) {
+            stmt.Init = switch (curToken.Type) {
+                case Token.LET -> parseLetStatement();
+                case Token.IDENT -> parseAssignStatement();
+                default -> {
+                    errors.add(String.format("expected let or assignment in for, got %s instead",curToken.Type));
+                    yield null;
+                }
+            };
+            if(stmt.Init == null) {
+                return null;
+            }
+            if(!curTokenIs(Token.SEMICOLON) && !expectPeek(Token.SEMICOLON)) {
+                return null;
+            }
+        }
+
+        nextToken();
+        stmt.Condition = parseExpression(Precedence.LOWEST.getValue());
+
+        if(!expectPeek(Token.SEMICOLON)) {
+            return null;
+        }
+
+        if(!peekTokenIs(Token.RPAREN)) {
+            if(!expectPeek(Token.IDENT)) {
+                return null;
+            }
+            stmt.Update = parseAssignStatement();
+            if(stmt.Update == null) {
+                return null;
+            }
+        }
+
+        if(!expectPeek(Token.RPAREN)) {
+            return null;
+        }
+
+        if(!expectPeek(Token.LBRACE)) {
+            return null;
+        }
+
+        stmt.Body = parseBlockStatement();
+
+        return stmt;
+    }
+
     public Ast.LetStatement parseLetStatement() {
         var stmt = new Ast.LetStatement(curToken);
 
@@ -197,6 +308,21 @@ public class Parser {
         return stmt;
     }
 
+    public Ast.ImportStatement parseImportStatement() {
+        var stmt = new Ast.ImportStatement(curToken);
+
+        if(!expectPeek(Token.STRING)) {
+            return null;
+        }
+        stmt.Path = curToken.Literal;
+
+        if(peekTokenIs(Token.SEMICOLON)) {
+            nextToken();
+        }
+
+        return stmt;
+    }
+
     public Ast.ExpressionStatement parseExpressionstatement() {
         var stmt = new Ast.ExpressionStatement(curToken);
 
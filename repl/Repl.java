@@ -2,10 +2,11 @@ package repl;
 
 import compiler.Compiler;
 import compiler.SymbolTable;
-import lexer.Lexer;
+import evaluator.Evaluator;
 import object.Builtins;
 import object.Object;
-import parser.Parser;
+import parser.ParallelParser;
+import vm.Engine;
 import vm.VM;
 import java.util.ArrayList;
 import java.util.Objects;
@@ -23,8 +24,7 @@ public class Repl {
         }
 
         var text = line.toString();
-        var l = new Lexer(text);
-        var p = new Parser(l);
+        var p = new ParallelParser(text);
 
         var program = p.ParseProgram();
         if (!p.Errors().isEmpty()) {
@@ -35,12 +35,27 @@ public class Repl {
         var constants = new ArrayList<Object>();
         var globals = new ArrayList<Object>(VM.GlobalSize);
 
+        if(Evaluator.Suits(program,text)) {
+            var evaluator = new Evaluator(program,text,globals);
+            var err = evaluator.Resolve();
+            if(!Objects.equals(err.Message, "")) {
+                System.out.printf("Woops! Compilation failed:\n %s\n",err.Message);
+                return;
+            }
+            err = evaluator.Run();
+            if(!Objects.equals(err.Message, "")) {
+                System.out.printf("Woops! Executing bytecode failed:\n %s\n",err.Message);
+            }
+            return;
+        }
+
         var symbolTable = new SymbolTable();
         for(int i = 0;i < Builtins.builtins.size();i++) {
             symbolTable.DefineBuiltin(i,Builtins.builtins.get(i).Name);
         }
 
         var comp = new Compiler(symbolTable,constants);
+        comp.Source = text;
         var err = comp.Compile(program);
         if(!Objects.equals(err.Message, "")) {
             System.out.printf("Woops! Compilation failed:\n %s\n",err.Message);
@@ -49,7 +64,7 @@ public class Repl {
 
         var code = comp.bytecode();
 
-        var machine = new VM(code,globals);
+        var machine = Engine.New(code,globals);
         err = machine.Run();
         if(!Objects.equals(err.Message, "")) {
             System.out.printf("Woops! Executing bytecode failed:\n %s\n",err.Message);
@@ -0,0 +1,110 @@
+package script;
+
+import ast.Ast;
+import compiler.Compiler;
+import compiler.SymbolTable;
+import object.Builtins;
+import object.Object;
+import object.Output;
+import parser.ParallelParser;
+import vm.VM;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// A script compiled once and evaluated any number of times. The names bound
+// when it was compiled occupy the first global slots, in order, so eval only
+// has to copy their current values in before running.
+public class MonkeyCompiledScript extends CompiledScript {
+    private final ScriptEngine engine;
+    public final Compiler.Bytecode Bytecode;
+
+    // Name of every global slot, by index.
+    private final java.lang.String[] names;
+    private final int numBindings;
+    // Whether the last top-level statement is an expression statement, which
+    // is what eval returns the value of.
+    private final boolean valued;
+
+    private MonkeyCompiledScript(ScriptEngine e,Compiler.Bytecode b,java.lang.String[] n,int bound,boolean v) {
+        engine = e;
+        Bytecode = b;
+        names = n;
+        numBindings = bound;
+        valued = v;
+    }
+
+    static MonkeyCompiledScript Compile(ScriptEngine engine,java.lang.String source,List<java.lang.String> bindings) throws ScriptException {
+        var p = new ParallelParser(source);
+        var program = p.ParseProgram();
+        if(!p.Errors().isEmpty()) {
+            throw new ScriptException(java.lang.String.join("\n", p.Errors()));
+        }
+
+        var symbolTable = new SymbolTable();
+        for(int i = 0;i < Builtins.builtins.size();i++) {
+            symbolTable.DefineBuiltin(i,Builtins.builtins.get(i).Name);
+        }
+        for(var name : bindings) {
+            symbolTable.Define(name);
+        }
+
+        var comp = new Compiler(symbolTable,new ArrayList<>());
+        comp.Source = source;
+        var err = comp.Compile(program);
+        if(!Objects.equals(err.Message, "")) {
+            throw new ScriptException(err.Message);
+        }
+
+        var names = new java.lang.String[symbolTable.numDefinitions];
+        for(var symbol : symbolTable.store.values()) {
+            if(Objects.equals(symbol.Scope, SymbolTable.SymbolScope.GLOBAL.getValue())) {
+                names[symbol.Index] = symbol.Name;
+            }
+        }
+
+        var statements = program.Statements;
+        var valued = !statements.isEmpty() && statements.get(statements.size() - 1) instanceof Ast.ExpressionStatement;
+        return new MonkeyCompiledScript(engine,comp.bytecode(),names,bindings.size(),valued);
+    }
+
+    // Runs the program in a fresh VM that puts to the context's writer.
+    // Globals the script defines, and bound names it reassigns, are written
+    // back to the engine scope. If the script ends in an expression
+    // statement its value is returned, otherwise null.
+    public java.lang.Object eval(ScriptContext context) throws ScriptException {
+        var globals = new ArrayList<Object>(names.length);
+        for(int i = 0;i < numBindings;i++) {
+            try {
+                globals.add(Values.ToMonkey(context.getAttribute(names[i])));
+            } catch (IllegalArgumentException e) {
+                throw new ScriptException(java.lang.String.format("%s: %s", names[i], e.getMessage()));
+            }
+        }
+        var inputs = new ArrayList<>(globals);
+
+        var machine = new VM(Bytecode,globals);
+        machine.Out = new Output(context.getWriter());
+        var err = machine.Run();
+        if(!Objects.equals(err.Message, "")) {
+            throw new ScriptException(err.Message);
+        }
+
+        for(int i = 0;i < names.length && i < globals.size();i++) {
+            if(names[i] != null && (i >= numBindings || globals.get(i) != inputs.get(i))) {
+                context.setAttribute(names[i],Values.ToJava(globals.get(i)),ScriptContext.ENGINE_SCOPE);
+            }
+        }
+
+        return valued ? Values.ToJava(machine.LastPoppedStackElem()) : null;
+    }
+
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,97 @@
+package script;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.TreeSet;
+
+// javax.script front end. eval compiles through the factory's ScriptCache,
+// so evaluating the same source with the same binding names again skips the
+// lexer, parser and compiler entirely.
+public class MonkeyScriptEngine extends AbstractScriptEngine implements Compilable {
+    private final MonkeyScriptEngineFactory factory;
+
+    public MonkeyScriptEngine(MonkeyScriptEngineFactory f) {
+        factory = f;
+    }
+
+    public Object eval(String script,ScriptContext context) throws ScriptException {
+        return compile(script,context).eval(context);
+    }
+
+    public Object eval(Reader reader,ScriptContext context) throws ScriptException {
+        return eval(read(reader),context);
+    }
+
+    public CompiledScript compile(String script) throws ScriptException {
+        return compile(script,context);
+    }
+
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    private MonkeyCompiledScript compile(String source,ScriptContext context) throws ScriptException {
+        var names = new TreeSet<String>();
+        for(var scope : context.getScopes()) {
+            var bindings = context.getBindings(scope);
+            if(bindings == null) {
+                continue;
+            }
+            for(var name : bindings.keySet()) {
+                if(isIdentifier(name)) {
+                    names.add(name);
+                }
+            }
+        }
+
+        var key = new ScriptCache.Key(source,List.copyOf(names));
+        var script = factory.cache.Get(key);
+        if(script != null) {
+            return script;
+        }
+
+        return factory.cache.Put(key,MonkeyCompiledScript.Compile(this,source,key.Bindings()));
+    }
+
+    // Binding names the lexer could never produce, like javax.script.filename,
+    // can't be referenced by a script and are left out of the key.
+    private static boolean isIdentifier(String name) {
+        if(name.isEmpty()) {
+            return false;
+        }
+        for(var c : name.toCharArray()) {
+            if(!Character.isLetter(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        var out = new StringWriter();
+        try {
+            reader.transferTo(out);
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package script;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Registered in META-INF/services, so
+// new ScriptEngineManager().getEngineByName("monkey") finds it.
+public class MonkeyScriptEngineFactory implements ScriptEngineFactory {
+    public static final String NAME = "monkey";
+
+    // Compiled programs are shared by every engine this factory creates.
+    final ScriptCache cache = new ScriptCache(Integer.getInteger("monkey.script.cache", 256));
+
+    public String getEngineName() {
+        return "Monkey";
+    }
+
+    public String getEngineVersion() {
+        return "1.0";
+    }
+
+    public List<String> getExtensions() {
+        return List.of("mk", "monkey");
+    }
+
+    public List<String> getMimeTypes() {
+        return List.of("application/x-monkey");
+    }
+
+    public List<String> getNames() {
+        return List.of(NAME, "Monkey");
+    }
+
+    public String getLanguageName() {
+        return "Monkey";
+    }
+
+    public String getLanguageVersion() {
+        return "1.0";
+    }
+
+    public Object getParameter(String key) {
+        return switch (key) {
+            case ScriptEngine.ENGINE -> getEngineName();
+            case ScriptEngine.ENGINE_VERSION -> getEngineVersion();
+            case ScriptEngine.NAME -> NAME;
+            case ScriptEngine.LANGUAGE -> getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION -> getLanguageVersion();
+            // Every eval runs in its own VM over immutable bytecode.
+            case "THREADING" -> "MULTITHREADED";
+            default -> null;
+        };
+    }
+
+    public String getMethodCallSyntax(String obj,String m,String... args) {
+        return String.format("%s[\"%s\"](%s)", obj, m, String.join(", ", args));
+    }
+
+    public String getOutputStatement(String toDisplay) {
+        return String.format("puts(\"%s\")", toDisplay);
+    }
+
+    public String getProgram(String... statements) {
+        return List.of(statements).stream().map(s -> s + ";").collect(Collectors.joining("\n"));
+    }
+
+    public ScriptEngine getScriptEngine() {
+        return new MonkeyScriptEngine(this);
+    }
+}
@@ -0,0 +1,60 @@
+package script;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bounded cache of compiled scripts shared by concurrent engines. A script is
+// compiled against the binding names visible when it was compiled, since
+// those decide the global slot of every name, so both form the key. When the
+// cache is full the oldest entry is evicted.
+public class ScriptCache {
+    public record Key(String Source, List<String> Bindings) {}
+
+    private final int capacity;
+    private final ConcurrentHashMap<Key, MonkeyCompiledScript> scripts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Key> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public ScriptCache(int c) {
+        capacity = c;
+    }
+
+    public MonkeyCompiledScript Get(Key key) {
+        return scripts.get(key);
+    }
+
+    // Returns the script already cached under key if another thread got there
+    // first, otherwise script.
+    public MonkeyCompiledScript Put(Key key,MonkeyCompiledScript script) {
+        if(capacity <= 0) {
+            return script;
+        }
+
+        var existing = scripts.putIfAbsent(key,script);
+        if(existing != null) {
+            return existing;
+        }
+
+        order.add(key);
+        if(size.incrementAndGet() > capacity) {
+            var eldest = order.poll();
+            if(eldest != null) {
+                scripts.remove(eldest);
+                size.decrementAndGet();
+            }
+        }
+        return script;
+    }
+
+    public int Size() {
+        return scripts.size();
+    }
+
+    public void Clear() {
+        scripts.clear();
+        order.clear();
+        size.set(0);
+    }
+}
@@ -0,0 +1,80 @@
+package script;
+
+import object.Object;
+import vm.VM;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Conversions between Java values held in Bindings and Monkey objects.
+// Monkey objects pass through both ways unchanged, so closures and builtins
+// can be handed back to a later eval.
+public class Values {
+
+    public static Object ToMonkey(java.lang.Object v) {
+        return switch (v) {
+            case null -> VM.NULL;
+            case Object o -> o;
+            case java.lang.Boolean b -> b ? VM.TRUE : VM.FALSE;
+            case java.lang.Integer i -> new Object.Integer(i);
+            case Long l -> {
+                if(l < java.lang.Integer.MIN_VALUE || l > java.lang.Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException(String.format("%d does not fit in an INTEGER", l));
+                }
+                yield new Object.Integer(l.intValue());
+            }
+            case Short s -> new Object.Integer(s);
+            case Byte b -> new Object.Integer(b);
+            case Character c -> new Object.Char(c);
+            case CharSequence s -> new Object.String(s.toString());
+            case List<?> list -> {
+                var elements = new ArrayList<Object>(list.size());
+                for(var e : list) {
+                    elements.add(ToMonkey(e));
+                }
+                yield new Object.Array(elements);
+            }
+            case Map<?, ?> map -> {
+                var pairs = new HashMap<Object.HashKey, Object.HashPair>();
+                for(var e : map.entrySet()) {
+                    var key = ToMonkey(e.getKey());
+                    if(!(key instanceof Object.Hashable h)) {
+                        throw new IllegalArgumentException(String.format("unusable as hash key: %s", key.Type()));
+                    }
+                    pairs.put(h.Hashkey(),new Object.HashPair(key,ToMonkey(e.getValue())));
+                }
+                yield new Object.Hash(pairs);
+            }
+            default -> throw new IllegalArgumentException(String.format("cannot pass %s to Monkey", v.getClass().getName()));
+        };
+    }
+
+    public static java.lang.Object ToJava(Object o) {
+        return switch (o) {
+            case null -> null;
+            case Object.Null n -> null;
+            case Object.Integer i -> i.Value;
+            case Object.Boolean b -> b.Value;
+            case Object.String s -> s.Value;
+            case Object.Char c -> c.Value;
+            case Object.Array a -> {
+                var list = new ArrayList<java.lang.Object>(a.Elements.size());
+                for(var e : a.Elements) {
+                    list.add(ToJava(e));
+                }
+                yield list;
+            }
+            case Object.Hash h -> {
+                var map = new LinkedHashMap<java.lang.Object, java.lang.Object>();
+                for(var p : h.Pairs.values()) {
+                    map.put(ToJava(p.Key),ToJava(p.Value));
+                }
+                yield map;
+            }
+            default -> o;
+        };
+    }
+}
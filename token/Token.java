@@ -42,9 +42,14 @@ public class Token {
     public static final String IF = "IF";
     public static final String ELSE = "ELSE";
     public static final String RETURN = "RETURN";
+    public static final String WHILE = "WHILE";
+    public static final String FOR = "FOR";
+    public static final String IMPORT = "IMPORT";
 
     public String Type;
     public String Literal;
+    // Offset of the token's first character in the source.
+    public int Position;
 
     public Token(String type,String literal) {
         Type = type;
@@ -59,6 +64,9 @@ public class Token {
         put("if", IF);
         put("else", ELSE);
         put("return", RETURN);
+        put("while", WHILE);
+        put("for", FOR);
+        put("import", IMPORT);
     }};
 
     public static String LookupIdent(String ident) {